@@ -0,0 +1,51 @@
+package tictactoe.ai;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tictactoe.models.BenchmarkPositions;
+import tictactoe.models.Game;
+
+/**
+ * A fixed number of MCTS iterations from a fresh tree, so the score is the cost of 10,000
+ * iterations. The pool is allocated once, as an engine kept for a whole game would be.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MctsAiBenchmark {
+  private static final int ITERATIONS = 10_000;
+
+  @Param({"3", "5", "7"})
+  int N;
+
+  @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME})
+  String position;
+
+  private Game game; // the position to search, never modified
+  private MctsAi mcts;
+
+  @Setup
+  public void setup() {
+    game = BenchmarkPositions.create(N, position);
+    mcts = new MctsAi(MctsAi.DEFAULT_CAPACITY, 42);
+    mcts.setTreeReuse(false);
+  }
+
+  @Benchmark
+  public SearchResult search() {
+    return mcts.search(game, SearchBudget.ofNodes(ITERATIONS));
+  }
+}
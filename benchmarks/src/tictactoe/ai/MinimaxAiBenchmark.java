@@ -0,0 +1,60 @@
+package tictactoe.ai;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tictactoe.models.BenchmarkPositions;
+import tictactoe.models.Game;
+
+/**
+ * Best move computation from scratch, as the game asks for it: every call starts with a fresh
+ * transposition table. Boards above 4x4 cannot be solved and are searched to a fixed depth. With
+ * metrics on, every search is counted in one {@link SearchMetrics}, to measure their overhead.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MinimaxAiBenchmark {
+  private static final int MAX_SOLVED_SIZE = 4; // largest board searched to the end of the game
+  private static final int DEPTH = 6; // search depth on larger boards
+
+  @Param({"3", "4", "5"})
+  int N;
+
+  @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME})
+  String position;
+
+  @Param({"false", "true"})
+  boolean isMeasured;
+
+  private Game game; // the position to search, never modified
+  private SearchMetrics metrics; // counts of every search when measured, or null
+
+  @Setup
+  public void setup() {
+    game = BenchmarkPositions.create(N, position);
+    metrics = isMeasured ? new SearchMetrics() : null;
+  }
+
+  @Benchmark
+  public int[] getBestMove() {
+    MinimaxAi ai = new MinimaxAi();
+    ai.setMetrics(metrics);
+    if (N <= MAX_SOLVED_SIZE) {
+      return ai.findBestMove(game);
+    }
+    return ai.search(game, SearchBudget.ofDepth(DEPTH)).getMove();
+  }
+}
@@ -0,0 +1,86 @@
+package tictactoe.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Probes and stores from four threads into one table, the way the searches of a parallel or
+ * batch search share it: the lock-free {@link SharedTranspositionTable} against a plain
+ * {@link TranspositionTable} behind a lock. One operation is a probe followed, on a miss, by a
+ * store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TranspositionTableBenchmark {
+  private static final int KEYS = 1 << 16; // twice the slots, so stores keep replacing entries
+  private static final int TABLE_BITS = 15;
+
+  @State(Scope.Benchmark)
+  public static class Tables {
+    @Param({"shared", "synchronized"})
+    String table;
+
+    SharedTranspositionTable shared;
+    TranspositionTable locked;
+
+    @Setup
+    public void setup() {
+      shared = new SharedTranspositionTable(TABLE_BITS);
+      locked = new TranspositionTable(TABLE_BITS);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Keys {
+    long[] keys = new long[KEYS];
+    int next; // index of the next key to look up
+
+    @Setup
+    public void setup() {
+      SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+      for (int i = 0; i < KEYS; i++) {
+        keys[i] = random.nextLong();
+      }
+    }
+
+    long nextKey() {
+      next = (next + 1) & (KEYS - 1);
+      return keys[next];
+    }
+  }
+
+  @Benchmark
+  public long probeAndStore(Tables tables, Keys keys) {
+    long key = keys.nextKey();
+    if (tables.table.equals("shared")) {
+      return probeAndStore(tables.shared, key);
+    }
+    synchronized (tables.locked) {
+      return probeAndStore(tables.locked, key);
+    }
+  }
+
+  private static long probeAndStore(TranspositionCache table, long key) {
+    long entry = table.probe(key);
+    if (entry == TranspositionTable.MISS) {
+      table.store(key, (int) key & 0x3F, (int) (key >>> 32), TranspositionTable.EXACT, 0);
+    }
+    return entry;
+  }
+}
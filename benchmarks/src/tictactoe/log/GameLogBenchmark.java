@@ -0,0 +1,110 @@
+package tictactoe.log;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * Appending a million random finished games to a fresh log, and a full scan of a million-game log
+ * that counts outcomes and openings. Each operation is one whole pass, so the score is the time of
+ * a pass.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameLogBenchmark {
+  private static final int GAMES = 1_000_000;
+  private static final int DISTINCT_GAMES = 10_000;
+
+  @Param({"3", "4"})
+  int N;
+
+  private Game[] games; // the games appended, in turn
+  private Path scanned; // log of GAMES games read by scan
+  private Path written; // log written by append, emptied before each pass
+
+  @Setup
+  public void setup() throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    games = new Game[DISTINCT_GAMES];
+    for (int i = 0; i < games.length; i++) {
+      games[i] = new Game(new Board(N));
+      int cells = N * N;
+      while (!games[i].isFinished()) {
+        int cell = random.nextInt(cells);
+        if (games[i].getBoard().isCellEmpty(cell / N, cell % N)) {
+          games[i].play(cell / N, cell % N);
+        }
+      }
+    }
+    scanned = Files.createTempDirectory("game-log-scan");
+    written = Files.createTempDirectory("game-log-append");
+    try (GameLogWriter writer = new GameLogWriter(scanned)) {
+      for (int i = 0; i < GAMES; i++) {
+        writer.append(games[i % games.length]);
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void emptyWrittenLog() throws IOException {
+    delete(written);
+    Files.createDirectories(written);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    delete(scanned);
+    delete(written);
+  }
+
+  @Benchmark
+  public long append() throws IOException {
+    try (GameLogWriter writer = new GameLogWriter(written)) {
+      for (int i = 0; i < GAMES; i++) {
+        writer.append(games[i % games.length]);
+      }
+      return writer.getRecordCount();
+    }
+  }
+
+  @Benchmark
+  public GameStats scan() throws IOException {
+    GameStats stats = new GameStats(N);
+    GameLogReader.scan(scanned, stats);
+    return stats;
+  }
+
+  private static void delete(Path directory) throws IOException {
+    if (!Files.exists(directory)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(p);
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package tictactoe.models;
+
+import java.util.Random;
+
+/**
+ * Reproducible positions shared by the benchmarks
+ */
+public final class BenchmarkPositions {
+  public static final String EMPTY = "empty";
+  public static final String MIDGAME = "midgame";
+  private static final long SEED = 42; // fixed, so every run measures the same positions
+
+  private BenchmarkPositions() {}
+
+  /**
+   * Create a game in the named position
+   *
+   * @param N The board size
+   * @param position {@link #EMPTY}, or {@link #MIDGAME} for an unfinished game with half of the
+   *        cells marked
+   * @return The game
+   * @throws IllegalArgumentException for an unknown position
+   */
+  public static Game create(int N, String position) {
+    if (EMPTY.equals(position)) {
+      return new Game(new Board(N));
+    }
+    if (!MIDGAME.equals(position)) {
+      throw new IllegalArgumentException("Unknown position: " + position);
+    }
+    Random random = new Random(SEED);
+    while (true) {
+      Game g = new Game(new Board(N));
+      BitBoard cells = g.getBoard().getBitBoard();
+      for (int moves = 0; moves < N * N / 2; moves++) {
+        int cell;
+        do {
+          cell = random.nextInt(N * N);
+        } while (!cells.isEmpty(cell));
+        g.play(cell / N, cell % N);
+        if (g.isFinished()) {
+          break;
+        }
+      }
+      if (!g.isFinished()) {
+        return g;
+      }
+    }
+  }
+
+  /**
+   * List the empty cells of a game
+   *
+   * @param g The game
+   * @return The empty cell indices in row-major order
+   */
+  public static int[] emptyCells(Game g) {
+    BitBoard cells = g.getBoard().getBitBoard();
+    int[] empty = new int[cells.getEmptyCellCount()];
+    int n = 0;
+    for (int cell = 0; cell < cells.getCellCount(); cell++) {
+      if (cells.isEmpty(cell)) {
+        empty[n++] = cell;
+      }
+    }
+    return empty;
+  }
+}
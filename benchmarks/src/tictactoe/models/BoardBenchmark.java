@@ -0,0 +1,54 @@
+package tictactoe.models;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing and clearing a cell, with the incremental line sums and hashes they maintain
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+  @Param({"3", "4", "5"})
+  int N;
+
+  @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME})
+  String position;
+
+  private Board board; // board of the position, restored after every operation
+  private int[] cells; // empty cells of the position
+  private int next; // index of the cell used by the next operation
+
+  @Setup
+  public void setup() {
+    Game g = BenchmarkPositions.create(N, position);
+    board = g.getBoard();
+    cells = BenchmarkPositions.emptyCells(g);
+  }
+
+  @Benchmark
+  public int writeAndClearCell() {
+    int cell = cells[next];
+    next = next + 1 == cells.length ? 0 : next + 1;
+    int x = cell / N;
+    int y = cell % N;
+    board.writeToCell(x, y, true);
+    int trace = board.getTrace();
+    board.clearCell(x, y);
+    return trace;
+  }
+}
@@ -0,0 +1,65 @@
+package tictactoe.models;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Playing and taking back moves, and the outcome check that runs after every move
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+  @Param({"3", "4", "5"})
+  int N;
+
+  @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME})
+  String position;
+
+  private Game game; // game in the position, restored after every operation
+  private int[] cells; // empty cells of the position
+  private int next; // index of the cell used by the next operation
+  private Game played; // game right after a move, for the outcome check
+  private int lastX; // row of the move played last in the played game
+  private int lastY; // column of the move played last in the played game
+
+  @Setup
+  public void setup() {
+    game = BenchmarkPositions.create(N, position);
+    cells = BenchmarkPositions.emptyCells(game);
+    played = BenchmarkPositions.create(N, position);
+    lastX = cells[0] / N;
+    lastY = cells[0] % N;
+    played.play(lastX, lastY);
+    // computeOutcome judges the player to move, who is the one that just played
+    played.setPlayerTurn(!played.isMaximizingPlayerTurn());
+  }
+
+  @Benchmark
+  public boolean playAndUndo() {
+    int cell = cells[next];
+    next = next + 1 == cells.length ? 0 : next + 1;
+    game.play(cell / N, cell % N);
+    game.undoPreviousMove();
+    return game.isMaximizingPlayerTurn();
+  }
+
+  @Benchmark
+  public Game computeOutcome() {
+    played.computeOutcome(lastX, lastY);
+    return played;
+  }
+}
@@ -0,0 +1,58 @@
+package tictactoe.models;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding a game with its move list into a buffer, and decoding it into an existing game
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameCodecBenchmark {
+  @Param({"3", "4", "5"})
+  int N;
+
+  @Param({BenchmarkPositions.MIDGAME})
+  String position;
+
+  private Game game; // the game to encode
+  private Game target; // the game decoded into
+  private ByteBuffer buffer; // holds one encoded game
+
+  @Setup
+  public void setup() {
+    game = BenchmarkPositions.create(N, position);
+    target = new Game(new Board(N));
+    buffer = ByteBuffer.allocateDirect(GameCodec.encodedSize(game, true));
+    GameCodec.encode(game, buffer);
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    buffer.clear();
+    GameCodec.encode(game, buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public Game decode() {
+    buffer.rewind();
+    GameCodec.decode(buffer, target);
+    return target;
+  }
+}
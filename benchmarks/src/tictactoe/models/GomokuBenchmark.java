@@ -0,0 +1,82 @@
+package tictactoe.models;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tictactoe.ai.MctsAi;
+import tictactoe.ai.MinimaxAi;
+import tictactoe.ai.SearchBudget;
+import tictactoe.ai.SearchResult;
+
+/**
+ * The move, win check and search costs on a 15x15 board won by 5 in a row, from an opening with
+ * 20 random marks. The searches start from scratch every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GomokuBenchmark {
+  private static final int SIZE = 15;
+  private static final int OPENING_MOVES = 20;
+
+  @Param({"5"})
+  int k;
+
+  private Game game; // game in the opening, restored after every operation
+  private int[] cells; // empty cells of the opening
+  private int next; // index of the cell used by the next operation
+  private MinimaxAi minimax;
+  private MctsAi mcts;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    do {
+      game = new Game(new Board(SIZE, SIZE, k));
+      while (game.getMoveCount() < OPENING_MOVES && !game.isFinished()) {
+        int cell = random.nextInt(SIZE * SIZE);
+        if (game.getBoard().isCellEmpty(cell / SIZE, cell % SIZE)) {
+          game.play(cell / SIZE, cell % SIZE);
+        }
+      }
+    } while (game.isFinished());
+    cells = BenchmarkPositions.emptyCells(game);
+    minimax = new MinimaxAi();
+    mcts = new MctsAi(MctsAi.DEFAULT_CAPACITY, 42);
+    mcts.setTreeReuse(false);
+  }
+
+  @Benchmark
+  public boolean playAndUndo() {
+    int cell = cells[next];
+    next = next + 1 == cells.length ? 0 : next + 1;
+    game.play(cell / SIZE, cell % SIZE);
+    game.undoPreviousMove();
+    return game.isMaximizingPlayerTurn();
+  }
+
+  @Benchmark
+  public SearchResult minimaxDepth3() {
+    // start cold, the table would answer every search after the first
+    minimax.getTranspositionTable().clear();
+    return minimax.search(game, SearchBudget.ofDepth(3));
+  }
+
+  @Benchmark
+  public SearchResult mcts1000Iterations() {
+    return mcts.search(game, SearchBudget.ofNodes(1_000));
+  }
+}
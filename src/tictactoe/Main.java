@@ -1,9 +1,15 @@
 package tictactoe;
 
+import java.io.IOException;
+import java.util.Arrays;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
+import tictactoe.ai.ProofNumberSolver;
 import tictactoe.models.Board;
 import tictactoe.models.Game;
+import tictactoe.models.Perft;
+import tictactoe.server.LoadGenerator;
+import tictactoe.tournament.Tournament;
 import tictactoe.view.GameController;
 import tictactoe.view.GamePanel;
 
@@ -26,7 +32,27 @@ public class Main extends JFrame {
     setFocusable(true);
   }
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws InterruptedException, IOException {
+    if (args.length > 0 && args[0].equals("--load-test")) {
+      // headless: host many sessions and measure them, see LoadGenerator for the options
+      LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--tournament")) {
+      // headless: play AI configurations against each other, see Tournament for the options
+      Tournament.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--perft")) {
+      // headless: count every move sequence of a board, see Perft for the options
+      Perft.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--solve")) {
+      // headless: prove the value of a board, see ProofNumberSolver for the options
+      ProofNumberSolver.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
     SwingUtilities.invokeLater(() -> {
       new Main();
     });
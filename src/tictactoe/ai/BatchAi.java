@@ -0,0 +1,170 @@
+package tictactoe.ai;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import tictactoe.models.BitBoard;
+import tictactoe.models.PackedPosition;
+
+/**
+ * Best moves for many positions at once, e.g. for hints or bot tournaments.
+ *
+ * Positions come in as {@link PackedPosition} longs. Positions that are equal up to rotation and
+ * reflection (same canonical board and player to move) are searched once, and the move is mapped
+ * back onto each orientation. The distinct positions are split across a ForkJoinPool; every pool
+ * thread keeps its own {@link MinimaxAi}, and they all share one {@link SharedTranspositionTable},
+ * which carries over from one position to the next, within and across batches.
+ */
+public class BatchAi {
+  public static final int DEFAULT_TABLE_BITS = 18;
+  private final ForkJoinPool pool;
+  private final SearchBudget budget; // budget of the search of each distinct position
+  private final SharedTranspositionTable table; // shared by the workers, aged once per batch
+  private final ThreadLocal<MinimaxAi> workers; // the search of each pool thread
+
+  /**
+   * Initialize a batch search that solves every position
+   *
+   * @param pool The pool to run the searches on
+   */
+  public BatchAi(ForkJoinPool pool) {
+    this(pool, SearchBudget.unlimited());
+  }
+
+  /**
+   * Initialize a batch search
+   *
+   * @param pool The pool to run the searches on
+   * @param budget The budget of the search of each distinct position
+   */
+  public BatchAi(ForkJoinPool pool, SearchBudget budget) {
+    this(pool, budget, new SharedTranspositionTable(DEFAULT_TABLE_BITS));
+  }
+
+  /**
+   * Initialize a batch search on a given table, e.g. one shared with other searches
+   *
+   * @param pool The pool to run the searches on
+   * @param budget The budget of the search of each distinct position
+   * @param table The table shared by the pool threads
+   */
+  public BatchAi(ForkJoinPool pool, SearchBudget budget, SharedTranspositionTable table) {
+    this.pool = pool;
+    this.budget = budget;
+    this.table = table;
+    this.workers = ThreadLocal.withInitial(() -> new MinimaxAi(table));
+  }
+
+  /**
+   * Compute the best move of every position
+   *
+   * @param N The board size of the positions
+   * @param positions The positions, encoded by {@link PackedPosition}
+   * @return [i] = best move and score of positions[i]. A position that was answered from a
+   *         symmetric duplicate reports 0 nodes, and its move is the duplicate's move mapped onto
+   *         it, so it may differ from the lowest-index choice of a search of its own.
+   * @throws IllegalArgumentException when a position is finished or the board is too large
+   */
+  public SearchResult[] findBestMoves(int N, long[] positions) {
+    // one batch is one logical search for the table, however many positions it holds
+    table.newSearch();
+    BitBoard b = new BitBoard(N);
+    Map<Long, Integer> uniqueIndex = new HashMap<>();
+    long[] unique = new long[positions.length];
+    int[] uniqueSymmetry = new int[positions.length];
+    int[] representative = new int[positions.length]; // [i] = index of positions[i] in unique
+    int[] symmetry = new int[positions.length]; // [i] = canonical symmetry of positions[i]
+    for (int i = 0; i < positions.length; i++) {
+      PackedPosition.decode(positions[i], b);
+      if (b.getEmptyCellCount() == 0 || b.hasCompleteLine(true) || b.hasCompleteLine(false)) {
+        throw new IllegalArgumentException("Position " + i + " is finished");
+      }
+      symmetry[i] = b.getCanonicalSymmetry();
+      long key = canonicalPosition(b, symmetry[i], positions[i]);
+      Integer index = uniqueIndex.get(key);
+      if (index == null) {
+        index = uniqueIndex.size();
+        uniqueIndex.put(key, index);
+        unique[index] = positions[i];
+        uniqueSymmetry[index] = symmetry[i];
+      }
+      representative[i] = index;
+    }
+
+    SearchResult[] solved = new SearchResult[uniqueIndex.size()];
+    if (solved.length > 0) {
+      pool.invoke(new SearchTask(N, unique, solved, 0, solved.length));
+    }
+
+    SearchResult[] results = new SearchResult[positions.length];
+    boolean[] isReported = new boolean[solved.length];
+    for (int i = 0; i < positions.length; i++) {
+      int index = representative[i];
+      SearchResult result = solved[index];
+      if (positions[i] == unique[index] && !isReported[index]) {
+        results[i] = result;
+        isReported[index] = true;
+        continue;
+      }
+      // map the move through the canonical orientation onto this position
+      int canonicalCell = b.transformCell(uniqueSymmetry[index], result.getX() * N + result.getY());
+      int cell = b.inverseTransformCell(symmetry[i], canonicalCell);
+      results[i] = new SearchResult(cell / N, cell % N, result.getScore(), result.getDepth(), 0,
+          result.isComplete());
+    }
+    return results;
+  }
+
+  /**
+   * Pack a position in its canonical orientation. Unlike the canonical hash, the packed position is
+   * exact, so two different positions never share a key.
+   *
+   * @param b The board the position is decoded in
+   * @param symmetry The canonical symmetry of the board
+   * @param position The packed position
+   * @return The packed position of the board transformed by the symmetry, same player to move
+   */
+  private static long canonicalPosition(BitBoard b, int symmetry, long position) {
+    int cells = b.getCellCount();
+    long canonical = position & -(1L << (2 * cells)); // keeps the player to move
+    for (int cell = 0; cell < cells; cell++) {
+      long value = (position >>> (2 * cell)) & 3;
+      canonical |= value << (2 * b.transformCell(symmetry, cell));
+    }
+    return canonical;
+  }
+
+  /**
+   * Searches a range of distinct positions, splitting it in halves down to single positions
+   */
+  private class SearchTask extends RecursiveAction {
+    private final int N;
+    private final long[] positions;
+    private final SearchResult[] results;
+    private final int from; // first position of the range
+    private final int to; // end of the range, exclusive
+
+    SearchTask(int N, long[] positions, SearchResult[] results, int from, int to) {
+      this.N = N;
+      this.positions = positions;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        BitBoard b = new BitBoard(N);
+        PackedPosition.decode(positions[from], b);
+        results[from] = workers.get().search(b,
+            PackedPosition.isMaximizingPlayerTurn(positions[from]), budget);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new SearchTask(N, positions, results, from, middle),
+          new SearchTask(N, positions, results, middle, to));
+    }
+  }
+}
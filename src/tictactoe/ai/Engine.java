@@ -0,0 +1,36 @@
+package tictactoe.ai;
+
+import tictactoe.models.Game;
+
+/**
+ * A move search. Implementations keep state from one search to the next (transposition table,
+ * search tree), so reuse one instance for every move of a game; they are not thread-safe unless
+ * stated otherwise.
+ *
+ * The score of a result favours the first player when positive; its scale depends on the engine.
+ * An interrupt of the searching thread ends a search like an exhausted budget: the best move found
+ * so far is returned and the interrupt status stays set.
+ */
+public interface Engine {
+  /**
+   * Computes the next best move within a budget
+   *
+   * @param g The current Game instance, left untouched
+   * @param budget The limits of the search
+   * @return The best move found
+   * @throws IllegalArgumentException when the game is finished
+   */
+  SearchResult search(Game g, SearchBudget budget);
+
+  /**
+   * Computes the next best move with the engine's default effort: a full search for
+   * {@link MinimaxAi}
+   *
+   * @param g The current Game instance, left untouched
+   * @return The next best move as int[2] array with [x,y]
+   * @throws IllegalArgumentException when the game is finished
+   */
+  default int[] findBestMove(Game g) {
+    return search(g, SearchBudget.unlimited()).getMove();
+  }
+}
@@ -0,0 +1,46 @@
+package tictactoe.ai;
+
+import tictactoe.models.BitBoard;
+
+/**
+ * Static evaluation of positions the search cannot follow to the end of the game. Scores are from
+ * the first player's point of view and must stay strictly within +/- {@link MinimaxAi#WIN_SCORE}.
+ *
+ * An evaluator may keep incremental state about the searched board: the search calls reset once at
+ * the root, then played/undone around every move, and evaluate at the horizon. Implementations
+ * should not allocate in any of these calls, as they run once per node.
+ */
+public interface Evaluator {
+  /**
+   * Synchronize with the position at the root of a search
+   *
+   * @param b The root position
+   */
+  default void reset(BitBoard b) {}
+
+  /**
+   * Update after a move was played on the searched board
+   *
+   * @param b The position after the move
+   * @param cell The cell that was played
+   * @param isMaximizingPlayer Whether the first player played it
+   */
+  default void played(BitBoard b, int cell, boolean isMaximizingPlayer) {}
+
+  /**
+   * Update after a move was taken back on the searched board
+   *
+   * @param b The position after the undo
+   * @param cell The cell that was cleared
+   * @param isMaximizingPlayer Whether the first player had played it
+   */
+  default void undone(BitBoard b, int cell, boolean isMaximizingPlayer) {}
+
+  /**
+   * Score the position
+   *
+   * @param b The position to score
+   * @return The score, positive favours the first player
+   */
+  int evaluate(BitBoard b);
+}
@@ -0,0 +1,94 @@
+package tictactoe.ai;
+
+import tictactoe.models.BitBoard;
+
+/**
+ * Default evaluation: a line holding marks of only one player is still open for that player, and
+ * is worth more the fuller it is. A line holding marks of both players can never be won and is
+ * worth nothing. The score is the sum over all lines.
+ *
+ * The sum is kept up to date from the per-line mark counts of the board: a move only changes the
+ * lines through its cell, so played and undone cost a few array reads and evaluate is O(1).
+ */
+public class LineEvaluator implements Evaluator {
+  private static final int WEIGHT_BASE = 8; // value ratio between n + 1 and n marks on a line
+  private int[] weights = new int[0]; // [marks] = value of an open line holding that many marks
+  private int lineCount; // number of lines the weights are capped for
+  private int score; // sum of the line values of the current position
+
+  @Override
+  public void reset(BitBoard b) {
+    int length = b.getLineLength();
+    if (weights.length != length + 1 || lineCount != b.getLineCount()) {
+      lineCount = b.getLineCount();
+      weights = buildWeights(length, lineCount);
+    }
+    score = 0;
+    for (int line = 0; line < b.getLineCount(); line++) {
+      score += lineValue(b.getLineMarks(line, true), b.getLineMarks(line, false));
+    }
+  }
+
+  @Override
+  public void played(BitBoard b, int cell, boolean isMaximizingPlayer) {
+    int[] lines = b.getLinesThrough(cell);
+    for (int i = 0; i < lines.length; i++) {
+      int first = b.getLineMarks(lines[i], true);
+      int second = b.getLineMarks(lines[i], false);
+      int before = isMaximizingPlayer ? lineValue(first - 1, second) : lineValue(first, second - 1);
+      score += lineValue(first, second) - before;
+    }
+  }
+
+  @Override
+  public void undone(BitBoard b, int cell, boolean isMaximizingPlayer) {
+    int[] lines = b.getLinesThrough(cell);
+    for (int i = 0; i < lines.length; i++) {
+      int first = b.getLineMarks(lines[i], true);
+      int second = b.getLineMarks(lines[i], false);
+      int before = isMaximizingPlayer ? lineValue(first + 1, second) : lineValue(first, second + 1);
+      score += lineValue(first, second) - before;
+    }
+  }
+
+  @Override
+  public int evaluate(BitBoard b) {
+    return score;
+  }
+
+  /**
+   * Value of a line from the first player's point of view
+   *
+   * @param first Number of first player marks on the line
+   * @param second Number of second player marks on the line
+   * @return The weight of the line if only one player has marks on it, 0 otherwise
+   */
+  private int lineValue(int first, int second) {
+    if (second == 0) {
+      return weights[first];
+    }
+    if (first == 0) {
+      return -weights[second];
+    }
+    return 0;
+  }
+
+  /**
+   * Build the open line weights, capped so that the sum over every line stays below a win
+   *
+   * @param length The number of cells on a line
+   * @param lineCount The number of lines on the board
+   * @return [marks] = weight
+   */
+  private static int[] buildWeights(int length, int lineCount) {
+    int cap = (MinimaxAi.WIN_SCORE - 1) / lineCount;
+    int[] weights = new int[length + 1];
+    long weight = 1;
+    for (int marks = 1; marks <= length; marks++) {
+      weights[marks] = (int) Math.min(weight, cap);
+      // clamped as it grows, so that long lines cannot overflow it
+      weight = Math.min(weight * WEIGHT_BASE, cap);
+    }
+    return weights;
+  }
+}
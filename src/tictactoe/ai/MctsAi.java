@@ -0,0 +1,503 @@
+package tictactoe.ai;
+
+import java.util.SplittableRandom;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Game;
+
+/**
+ * Monte Carlo Tree Search with the UCT selection rule, for boards too large for a full minimax.
+ * Every iteration walks down the tree by UCT, adds one node, finishes the game with random moves
+ * and backs the result up the path. The move played is the most visited root move.
+ *
+ * The tree lives in a pool of parallel arrays (children as sibling lists), allocated once, so
+ * growing it allocates nothing. Once the pool is full, iterations still run but the tree stops
+ * growing. Between consecutive searches of the same game the subtree of the new position is kept
+ * and compacted to the front of the pool, so its statistics carry over.
+ *
+ * The budget is counted in iterations (the node limit of the {@link SearchBudget}) and wall time;
+ * the depth limit is ignored and an unbounded budget runs DEFAULT_ITERATIONS iterations. Scores
+ * are the expected result of the best move for the first player, in thousandths: 1000 is a sure
+ * first player win, -1000 a sure second player win. Results are never complete.
+ */
+public class MctsAi implements Engine {
+  public static final int DEFAULT_CAPACITY = 1 << 18;
+  public static final int DEFAULT_ITERATIONS = 100_000;
+  public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+  static final int SCORE_SCALE = 1000;
+  private static final int CHECK_INTERVAL = 64; // iterations between two reads of the clock
+  private static final int NONE = -1;
+  private static final double WIN = 1; // results from the first player's point of view
+  private static final double DRAW = 0.5;
+  private static final double LOSS = 0;
+  private final int capacity; // maximum number of nodes
+  private final SplittableRandom random;
+  private int[] moves; // [node] = cell played to reach the node
+  private int[] firstChild; // [node] = most recently added child, or NONE
+  private int[] nextSibling; // [node] = next child of the same parent, or NONE
+  private int[] childCount; // [node] = number of children added
+  private int[] visits; // [node] = iterations through the node
+  private double[] wins; // [node] = results summed for the player who moved into the node
+  private int[] spareMoves; // second pool the tree is compacted into, allocated on first reuse
+  private int[] spareFirstChild;
+  private int[] spareNextSibling;
+  private int[] spareChildCount;
+  private int[] spareVisits;
+  private double[] spareWins;
+  private int size; // nodes in use
+  private int root = NONE; // root node, NONE when there is no tree
+  private BitBoard rootBoard; // position of the root
+  private boolean isRootMaximizing; // Whether the first player is to move at the root
+  private boolean isReusingTree = true; // Whether to keep the tree between searches
+  private double exploration = DEFAULT_EXPLORATION; // UCT exploration constant
+  private int[] path = new int[0]; // [i] = node at depth i of the current iteration
+  private int[] played = new int[0]; // cells played in the current iteration, for undo
+  private int[] empties = new int[0]; // empty cells during a playout
+  private double playoutResult; // result of the last playout, for the first player
+  private int maxDepth; // deepest node reached by the current search
+
+  /**
+   * Initialize the AI with a pool of the default size and a random seed
+   */
+  public MctsAi() {
+    this(DEFAULT_CAPACITY, new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Initialize the AI
+   *
+   * @param capacity The number of nodes of the pool, at least 2
+   * @param seed The seed of the playouts, the same seed and budget give the same moves
+   */
+  public MctsAi(int capacity, long seed) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("The pool must hold the root and a move");
+    }
+    this.capacity = capacity;
+    this.random = new SplittableRandom(seed);
+    this.moves = new int[capacity];
+    this.firstChild = new int[capacity];
+    this.nextSibling = new int[capacity];
+    this.childCount = new int[capacity];
+    this.visits = new int[capacity];
+    this.wins = new double[capacity];
+  }
+
+  /**
+   * Computes the next best move within a budget
+   *
+   * @param g The current Game instance, left untouched
+   * @param budget The iteration and time limits of the search
+   * @return The most visited move, with its expected result and the number of iterations
+   * @throws IllegalArgumentException when the run with a finished game
+   */
+  @Override
+  public SearchResult search(Game g, SearchBudget budget) {
+    if (g.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    BitBoard position = g.getBoard().getBitBoard();
+    long iterations = grow(position, g.isMaximizingPlayerTurn(), budget);
+    int[] visitsByCell = new int[position.getCellCount()];
+    double[] winsByCell = new double[position.getCellCount()];
+    addRootStatistics(visitsByCell, winsByCell);
+    return bestMove(position.getColumnCount(), g.isMaximizingPlayerTurn(), visitsByCell, winsByCell,
+        maxDepth, iterations);
+  }
+
+  /**
+   * Set the exploration constant of UCT. Higher values spread the iterations over more moves.
+   *
+   * @param exploration The constant, sqrt(2) by default
+   */
+  public void setExploration(double exploration) {
+    if (!(exploration >= 0)) {
+      throw new IllegalArgumentException("Invalid exploration constant " + exploration);
+    }
+    this.exploration = exploration;
+  }
+
+  /**
+   * Enable or disable keeping the tree between searches
+   *
+   * @param isReusingTree True to keep the subtree of the new position (the default)
+   */
+  public void setTreeReuse(boolean isReusingTree) {
+    this.isReusingTree = isReusingTree;
+  }
+
+  /**
+   * Drop the tree, the next search starts from scratch
+   */
+  public void clearTree() {
+    root = NONE;
+    rootBoard = null;
+    size = 0;
+  }
+
+  /**
+   * Get the number of nodes in the pool
+   *
+   * @return The tree size
+   */
+  public int getTreeSize() {
+    return size;
+  }
+
+  /**
+   * Get the number of iterations through the root, including those of earlier searches whose tree
+   * was kept
+   *
+   * @return The root visit count, 0 when there is no tree
+   */
+  public int getRootVisits() {
+    return root == NONE ? 0 : visits[root];
+  }
+
+  /**
+   * Run iterations from a position until the budget runs out
+   *
+   * @param position The position, left untouched
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @param budget The iteration and time limits
+   * @return The number of iterations run, at least 1
+   */
+  long grow(BitBoard position, boolean isMaximizingPlayerTurn, SearchBudget budget) {
+    prepareRoot(position, isMaximizingPlayerTurn);
+    long maxIterations = budget.isUnbounded() ? DEFAULT_ITERATIONS : budget.getMaxNodes();
+    long deadline = budget.deadlineFromNow();
+    BitBoard b = new BitBoard(position);
+    if (empties.length < b.getCellCount()) {
+      path = new int[b.getCellCount() + 1];
+      played = new int[b.getCellCount()];
+      empties = new int[b.getCellCount()];
+    }
+    maxDepth = 0;
+    long iterations = 0;
+    do {
+      iterate(b);
+      iterations++;
+    } while (iterations < maxIterations
+        && ((iterations & (CHECK_INTERVAL - 1)) != 0
+            || (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted())));
+    return iterations;
+  }
+
+  /**
+   * Add the visits and results of the root moves to per-cell totals
+   *
+   * @param visitsByCell [cell] = visits, added to
+   * @param winsByCell [cell] = results for the player to move at the root, added to
+   */
+  void addRootStatistics(int[] visitsByCell, double[] winsByCell) {
+    for (int child = firstChild[root]; child != NONE; child = nextSibling[child]) {
+      visitsByCell[moves[child]] += visits[child];
+      winsByCell[moves[child]] += wins[child];
+    }
+  }
+
+  int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Pick the most visited move, ties going to the lowest cell index
+   *
+   * @param columns The number of columns of the board
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @param visitsByCell [cell] = visits of the root move
+   * @param winsByCell [cell] = results of the root move for the player to move
+   * @param depth The deepest node reached
+   * @param iterations The number of iterations run
+   * @return The move and its expected result for the first player
+   */
+  static SearchResult bestMove(int columns, boolean isMaximizingPlayerTurn, int[] visitsByCell,
+      double[] winsByCell, int depth, long iterations) {
+    int best = 0;
+    for (int cell = 1; cell < visitsByCell.length; cell++) {
+      if (visitsByCell[cell] > visitsByCell[best]) {
+        best = cell;
+      }
+    }
+    double expected = winsByCell[best] / visitsByCell[best];
+    if (!isMaximizingPlayerTurn) {
+      expected = 1 - expected;
+    }
+    int score = (int) Math.round((2 * expected - 1) * SCORE_SCALE);
+    return new SearchResult(best / columns, best % columns, score, depth, iterations, false);
+  }
+
+  /**
+   * Make the position the root, keeping its subtree when it follows from the previous root
+   */
+  private void prepareRoot(BitBoard position, boolean isMaximizingPlayerTurn) {
+    int node = isReusingTree ? findNode(position, isMaximizingPlayerTurn) : NONE;
+    if (node == NONE) {
+      size = 0;
+      root = newNode(NONE);
+    } else if (node != root) {
+      compact(node);
+    }
+    rootBoard = new BitBoard(position);
+    isRootMaximizing = isMaximizingPlayerTurn;
+  }
+
+  /**
+   * Find the node of a position that follows from the root position by moves in the tree
+   *
+   * @return The node, or NONE when the position is not in the tree
+   */
+  private int findNode(BitBoard position, boolean isMaximizingPlayerTurn) {
+    if (root == NONE || !rootBoard.isSameShape(position)) {
+      return NONE;
+    }
+    int nMoves = rootBoard.getEmptyCellCount() - position.getEmptyCellCount();
+    if (nMoves < 0 || (isRootMaximizing == isMaximizingPlayerTurn) != (nMoves % 2 == 0)) {
+      return NONE;
+    }
+    int node = root;
+    boolean isMaximizing = isRootMaximizing;
+    // the new marks are played alternately; the order within a player does not matter since
+    // any order leads to the same position
+    int[] next = {0, 0}; // [player] = cell to look for the next new mark from
+    for (int i = 0; i < nMoves; i++) {
+      int player = isMaximizing ? 0 : 1;
+      int value = isMaximizing ? 1 : -1;
+      int cell = next[player];
+      while (cell < position.getCellCount()
+          && (position.read(cell) != value || rootBoard.read(cell) != 0)) {
+        cell++;
+      }
+      if (cell == position.getCellCount()) {
+        return NONE;
+      }
+      next[player] = cell + 1;
+      node = findChild(node, cell);
+      if (node == NONE) {
+        return NONE;
+      }
+      isMaximizing = !isMaximizing;
+    }
+    // every old mark must still be there
+    for (int cell = 0; cell < position.getCellCount(); cell++) {
+      if (rootBoard.read(cell) != 0 && rootBoard.read(cell) != position.read(cell)) {
+        return NONE;
+      }
+    }
+    return node;
+  }
+
+  private int findChild(int node, int cell) {
+    for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+      if (moves[child] == cell) {
+        return child;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Copy the subtree of a node to the front of the spare pool, breadth first, and swap the pools
+   */
+  private void compact(int node) {
+    if (spareMoves == null) {
+      spareMoves = new int[capacity];
+      spareFirstChild = new int[capacity];
+      spareNextSibling = new int[capacity];
+      spareChildCount = new int[capacity];
+      spareVisits = new int[capacity];
+      spareWins = new double[capacity];
+    }
+    copyNode(node, 0);
+    spareNextSibling[0] = NONE;
+    int end = 1;
+    for (int i = 0; i < end; i++) {
+      // the first child field holds the old index until the node is processed
+      int old = spareFirstChild[i];
+      int previous = NONE;
+      spareFirstChild[i] = NONE;
+      for (int child = firstChild[old]; child != NONE; child = nextSibling[child]) {
+        copyNode(child, end);
+        spareNextSibling[end] = NONE;
+        if (previous == NONE) {
+          spareFirstChild[i] = end;
+        } else {
+          spareNextSibling[previous] = end;
+        }
+        previous = end++;
+      }
+    }
+
+    int[] ints = moves;
+    moves = spareMoves;
+    spareMoves = ints;
+    ints = firstChild;
+    firstChild = spareFirstChild;
+    spareFirstChild = ints;
+    ints = nextSibling;
+    nextSibling = spareNextSibling;
+    spareNextSibling = ints;
+    ints = childCount;
+    childCount = spareChildCount;
+    spareChildCount = ints;
+    ints = visits;
+    visits = spareVisits;
+    spareVisits = ints;
+    double[] doubles = wins;
+    wins = spareWins;
+    spareWins = doubles;
+    size = end;
+    root = 0;
+  }
+
+  private void copyNode(int from, int to) {
+    spareMoves[to] = moves[from];
+    spareFirstChild[to] = from;
+    spareChildCount[to] = childCount[from];
+    spareVisits[to] = visits[from];
+    spareWins[to] = wins[from];
+  }
+
+  /**
+   * Selection, expansion, playout and backup of one iteration
+   *
+   * @param b The root position, restored on return
+   */
+  private void iterate(BitBoard b) {
+    int node = root;
+    boolean isMaximizing = isRootMaximizing;
+    int depth = 0;
+    int nPlayed = 0;
+    path[0] = root;
+    double result; // for the first player
+    while (true) {
+      boolean isNew = false;
+      int child;
+      if (childCount[node] == b.getEmptyCellCount()) {
+        child = select(node);
+      } else if (size < capacity) {
+        child = expand(node, b);
+        isNew = true;
+      } else {
+        child = NONE; // the pool is full, finish the game from here
+      }
+      if (child == NONE) {
+        nPlayed = playout(b, isMaximizing, nPlayed);
+        result = playoutResult;
+        break;
+      }
+      int cell = moves[child];
+      b.play(cell, isMaximizing);
+      played[nPlayed++] = cell;
+      path[++depth] = child;
+      if (b.isWinningCell(cell, isMaximizing)) {
+        result = isMaximizing ? WIN : LOSS;
+        break;
+      }
+      if (b.getEmptyCellCount() == 0) {
+        result = DRAW;
+        break;
+      }
+      isMaximizing = !isMaximizing;
+      if (isNew) {
+        nPlayed = playout(b, isMaximizing, nPlayed);
+        result = playoutResult;
+        break;
+      }
+      node = child;
+    }
+
+    maxDepth = Math.max(maxDepth, depth);
+    visits[root]++;
+    boolean isMoverMaximizing = isRootMaximizing;
+    for (int i = 1; i <= depth; i++) {
+      visits[path[i]]++;
+      wins[path[i]] += isMoverMaximizing ? result : 1 - result;
+      isMoverMaximizing = !isMoverMaximizing;
+    }
+    while (nPlayed > 0) {
+      b.undo(played[--nPlayed]);
+    }
+  }
+
+  /**
+   * Pick the child with the highest upper confidence bound
+   */
+  private int select(int node) {
+    double logVisits = Math.log(visits[node]);
+    int best = NONE;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+      if (visits[child] == 0) {
+        return child;
+      }
+      double value = wins[child] / visits[child]
+          + exploration * Math.sqrt(logVisits / visits[child]);
+      if (value > bestValue) {
+        bestValue = value;
+        best = child;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Add the next untried move of a node as a child. Moves are added in cell order, so the node's
+   * child count is the number of empty cells already tried.
+   */
+  private int expand(int node, BitBoard b) {
+    int skip = childCount[node];
+    int cell = 0;
+    while (!b.isEmpty(cell) || skip-- > 0) {
+      cell++;
+    }
+    int child = newNode(cell);
+    nextSibling[child] = firstChild[node];
+    firstChild[node] = child;
+    childCount[node]++;
+    return child;
+  }
+
+  private int newNode(int cell) {
+    int node = size++;
+    moves[node] = cell;
+    firstChild[node] = NONE;
+    nextSibling[node] = NONE;
+    childCount[node] = 0;
+    visits[node] = 0;
+    wins[node] = 0;
+    return node;
+  }
+
+  /**
+   * Finish the game with uniformly random moves, recording them for undo. Sets playoutResult.
+   *
+   * @param b The position, not finished
+   * @param isMaximizing Whether the first player is to move
+   * @param nPlayed Number of cells already recorded
+   * @return The number of cells recorded
+   */
+  private int playout(BitBoard b, boolean isMaximizing, int nPlayed) {
+    int nEmpty = 0;
+    for (int cell = 0; cell < b.getCellCount(); cell++) {
+      if (b.isEmpty(cell)) {
+        empties[nEmpty++] = cell;
+      }
+    }
+    while (true) {
+      int i = random.nextInt(nEmpty);
+      int cell = empties[i];
+      empties[i] = empties[--nEmpty];
+      b.play(cell, isMaximizing);
+      played[nPlayed++] = cell;
+      if (b.isWinningCell(cell, isMaximizing)) {
+        playoutResult = isMaximizing ? WIN : LOSS;
+        return nPlayed;
+      }
+      if (nEmpty == 0) {
+        playoutResult = DRAW;
+        return nPlayed;
+      }
+      isMaximizing = !isMaximizing;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package tictactoe.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+public class MctsAiTest {
+
+  @Test
+  public void winsAndBlocksLikeMinimax() {
+    Game g = new Game(new Board(3));
+    g.play(0, 0); // Player X
+    g.play(1, 1); // Player O
+    g.play(0, 1); // Player X
+    g.play(1, 0); // Player O
+    Engine mcts = new MctsAi(MctsAi.DEFAULT_CAPACITY, 1);
+    Assert.assertArrayEquals(new int[] {0, 2}, mcts.search(g, SearchBudget.ofNodes(5_000))
+        .getMove());
+
+    g.resetGame();
+    g.play(0, 0); // Player X
+    g.play(1, 1); // Player O
+    g.play(2, 2); // Player X
+    g.play(1, 0); // Player O
+    SearchResult result = mcts.search(g, SearchBudget.ofNodes(5_000));
+    Assert.assertArrayEquals(new int[] {1, 2}, result.getMove());
+    Assert.assertEquals(5_000, result.getNodes());
+  }
+
+  @Test
+  public void neverLosesToMinimaxOn3x3() {
+    for (int seed = 0; seed < 4; seed++) {
+      Game g = new Game(new Board(3));
+      Engine[] players = {new MctsAi(MctsAi.DEFAULT_CAPACITY, seed), new MinimaxAi()};
+      if (seed % 2 == 1) {
+        players = new Engine[] {players[1], players[0]};
+      }
+      for (int turn = 0; !g.isFinished(); turn++) {
+        int[] move = players[turn % 2].search(g, SearchBudget.ofNodes(20_000)).getMove();
+        g.play(move[0], move[1]);
+      }
+      Assert.assertEquals(Game.DRAW, g.getOutcome());
+    }
+  }
+
+  @Test
+  public void keepsTheSubtreeOfTheNextPosition() {
+    Game g = new Game(new Board(7));
+    MctsAi mcts = new MctsAi(MctsAi.DEFAULT_CAPACITY, 3);
+    int[] move = mcts.search(g, SearchBudget.ofNodes(20_000)).getMove();
+    g.play(move[0], move[1]);
+    int reply = move[0] == 0 && move[1] == 0 ? 1 : 0;
+    g.play(0, reply);
+    mcts.search(g, SearchBudget.ofNodes(1_000));
+    Assert.assertTrue(mcts.getRootVisits() > 1_000);
+
+    mcts.setTreeReuse(false);
+    mcts.search(g, SearchBudget.ofNodes(1_000));
+    Assert.assertEquals(1_000, mcts.getRootVisits());
+  }
+
+  @Test
+  public void rootParallelSearchSharesTheIterations() {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      Game g = new Game(new Board(5));
+      SearchResult result =
+          new ParallelMctsAi(pool, 2, 1 << 14, 5).search(g, SearchBudget.ofNodes(4_001));
+      Assert.assertEquals(4_001, result.getNodes());
+      Assert.assertTrue(g.getBoard().isCellEmpty(result.getX(), result.getY()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
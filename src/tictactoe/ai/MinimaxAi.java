@@ -1,97 +1,549 @@
 package tictactoe.ai;
 
+import java.util.function.Consumer;
+import tictactoe.models.BitBoard;
 import tictactoe.models.Game;
+import tictactoe.models.Symmetry;
 
 /**
  * Minimax with alphabeta pruning Algorithm to predict the next best move
+ *
+ * An instance keeps its transposition table between calls, so reuse one instance for every move
+ * of a game. Instances are not thread-safe. The table is keyed on the canonical hash of a position,
+ * so rotated and reflected positions share one entry; stored moves are in canonical orientation.
+ * Several instances may share one {@link SharedTranspositionTable} from different threads, as long
+ * as they evaluate positions the same way; the owner of a shared table ages its entries with
+ * {@link TranspositionCache#newSearch()}, a search never does.
+ *
+ * With a bounded {@link SearchBudget} the search deepens iteratively, one ply at a time, and
+ * answers with the best move of the deepest iteration that completed within the budget. An
+ * interrupt of the searching thread ends the search the same way, leaving the interrupt status set.
+ * Positions at the horizon are scored by a pluggable {@link Evaluator}. Moves are tried in the
+ * order given by {@link MoveOrdering}; at the root, ties still go to the lowest cell index.
+ * Positions found in an {@link OpeningBook}, when one is set, are answered without searching.
+ *
+ * Scores are from the first player's point of view. A won position scores WIN_SCORE plus the
+ * number of empty cells left, so faster wins score higher; evaluations stay below WIN_SCORE.
  */
-public class MinimaxAi {
+public class MinimaxAi implements Engine {
+  public static final int DEFAULT_TABLE_BITS = 16;
+  public static final int WIN_SCORE = 1_000_000;
+  private static final int CHECK_INTERVAL = 1024; // nodes between two reads of the clock
+  private static final int INFINITY = Integer.MAX_VALUE - 1; // window bound that can be negated
+  private final TranspositionCache table; // cache of searched positions, keyed by canonical hash
+  private final Evaluator evaluator; // scores the positions at the horizon
+  private final MoveOrdering ordering = new MoveOrdering(); // killer and history tables
+  private boolean isOrderingMoves = true; // Whether to order moves or search them row by row
+  private OpeningBook book; // solved positions answered without searching, or null
+  private long nodes; // nodes searched since the start of the current search
+  private long maxNodes = Long.MAX_VALUE; // node budget of the current search
+  private long deadline = Long.MAX_VALUE; // System.nanoTime() deadline of the current search
+  private boolean isAborted; // Whether the budget ran out during the current iteration
+  private int rootScore; // score of the best move of the last root iteration
+  private SearchMetrics metrics; // collects the counts of every search, or null
+  private SearchMetrics.Counters counters; // counts of the current search, null without metrics
+  private int rootPly; // moves played before the root of the current search
+  private Consumer<SearchResult> progressListener; // told about every completed iteration, or null
+
   /**
-   * Computes the next best move by minimax algorithm
-   * 
+   * Initialize the AI with its own transposition table of the default size
+   */
+  public MinimaxAi() {
+    this(new TranspositionTable(DEFAULT_TABLE_BITS));
+  }
+
+  /**
+   * Initialize the AI with the given transposition table and the default evaluation
+   *
+   * @param table The table to cache search results in
+   */
+  public MinimaxAi(TranspositionCache table) {
+    this(table, new LineEvaluator());
+  }
+
+  /**
+   * Initialize the AI with the given transposition table and evaluation
+   *
+   * @param table The table to cache search results in
+   * @param evaluator The evaluation of positions at the horizon, owned by this AI
+   */
+  public MinimaxAi(TranspositionCache table, Evaluator evaluator) {
+    this.table = table;
+    this.evaluator = evaluator;
+  }
+
+  /**
+   * Computes the next best move by minimax algorithm with a fresh transposition table
+   *
    * @param g The current Game instance
    * @return The next best move as int[2] array with [x,y]
    * @throws IllegalArugumentException when the run with a finished game
    */
   public static int[] getBestMove(Game g) {
-    int[] bestMove = new int[2];
-    boolean isMaximizingPlayerTurn = g.isMaximizingPlayerTurn();
-    int bestScore = isMaximizingPlayerTurn ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-
-    int alpha = Integer.MIN_VALUE;
-    int beta = Integer.MAX_VALUE;
-
-    int N = g.getBoard().getBoardSize();
-    for (int x = 0; x < N; x++) {
-      for (int y = 0; y < N; y++) {
-        g.getBoard().select(x, y);
-        if (g.getBoard().isCellEmpty()) {
-          // given that the correct player is set
-          g.play(x, y);
-          // compute the score recursively using minmax
-          int score = minimax(g, alpha, beta);
-          // update the best score
-          if (isMaximizingPlayerTurn) {
-            if (score > bestScore) {
-              bestScore = score;
-              bestMove[0] = x;
-              bestMove[1] = y;
-            }
-            alpha = Math.max(alpha, bestScore);
-          } else {
-            if (score < bestScore) {
-              bestScore = score;
-              bestMove[0] = x;
-              bestMove[1] = y;
-            }
-            beta = Math.min(beta, bestScore);
-          }
-          // revert the changes
-          g.undoPreviousMove();
+    return new MinimaxAi().findBestMove(g);
+  }
+
+  /**
+   * Computes the next best move by minimax algorithm
+   *
+   * @param g The current Game instance
+   * @return The next best move as int[2] array with [x,y]
+   * @throws IllegalArugumentException when the run with a finished game
+   */
+  @Override
+  public int[] findBestMove(Game g) {
+    return search(g, SearchBudget.unlimited()).getMove();
+  }
+
+  /**
+   * Computes the next best move within a budget. Each iteration searches one ply deeper; when the
+   * budget runs out mid-iteration that iteration is discarded and the best move of the deepest
+   * completed one is returned.
+   *
+   * @param g The current Game instance, left untouched
+   * @param budget The time, node and depth limits of the search
+   * @return The best move found and the depth it was found at
+   * @throws IllegalArugumentException when the run with a finished game
+   */
+  @Override
+  public SearchResult search(Game g, SearchBudget budget) {
+    if (g.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    return searchPosition(g.getBoard().getBitBoard(), g.isMaximizingPlayerTurn(), budget);
+  }
+
+  /**
+   * Computes the next best move of a position given as a bitboard, within a budget
+   *
+   * @param position The position, left untouched
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @param budget The time, node and depth limits of the search
+   * @return The best move found and the depth it was found at
+   * @throws IllegalArugumentException when the position is won or full
+   */
+  public SearchResult search(BitBoard position, boolean isMaximizingPlayerTurn,
+      SearchBudget budget) {
+    if (position.getEmptyCellCount() == 0 || position.hasCompleteLine(true)
+        || position.hasCompleteLine(false)) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    return searchPosition(position, isMaximizingPlayerTurn, budget);
+  }
+
+  /**
+   * Search an unfinished position
+   */
+  private SearchResult searchPosition(BitBoard position, boolean isMaximizingPlayerTurn,
+      SearchBudget budget) {
+    if (book != null) {
+      SearchResult solved = book.lookup(position, isMaximizingPlayerTurn);
+      if (solved != null) {
+        return solved;
+      }
+    }
+    long start = metrics != null ? System.nanoTime() : 0;
+    // search on a copy so the caller's board is never touched
+    BitBoard b = new BitBoard(position);
+    boolean[] isInvariant = invariantSymmetries(b);
+    evaluator.reset(b);
+
+    rootPly = b.getCellCount() - b.getEmptyCellCount();
+    nodes = 0;
+    maxNodes = budget.getMaxNodes();
+    deadline = budget.deadlineFromNow();
+    isAborted = false;
+
+    int maxDepth = Math.min(budget.getMaxDepth(), b.getEmptyCellCount());
+    // without a time or node limit the shallower iterations would be wasted work
+    int depth = budget.isUnbounded() ? maxDepth : 1;
+    int bestCell = TranspositionTable.NO_MOVE;
+    int bestScore = 0;
+    int completedDepth = 0;
+    for (; depth <= maxDepth; depth++) {
+      int cell = searchRoot(b, isMaximizingPlayerTurn, depth, isInvariant);
+      if (isAborted) {
+        if (bestCell == TranspositionTable.NO_MOVE) {
+          // not even the first iteration finished, take the best move seen so far
+          bestCell = cell;
+          bestScore = rootScore;
         }
+        break;
+      }
+      bestCell = cell;
+      bestScore = rootScore;
+      completedDepth = depth;
+      if (progressListener != null) {
+        progressListener.accept(result(b, bestCell, bestScore, completedDepth));
       }
+      if (Math.abs(bestScore) >= WIN_SCORE) {
+        // a forced win within the horizon stays a forced win deeper down
+        break;
+      }
+    }
+    maxNodes = Long.MAX_VALUE;
+    deadline = Long.MAX_VALUE;
+    if (metrics != null) {
+      metrics.record(counters, nodes, System.nanoTime() - start);
+      counters.clear();
     }
 
-    return bestMove;
+    return result(b, bestCell, bestScore, completedDepth);
+  }
+
+  /**
+   * Result of the search so far
+   */
+  private SearchResult result(BitBoard b, int bestCell, int bestScore, int completedDepth) {
+    int columns = b.getColumnCount();
+    boolean isComplete = completedDepth == b.getEmptyCellCount()
+        || (completedDepth > 0 && Math.abs(bestScore) >= WIN_SCORE);
+    return new SearchResult(bestCell / columns, bestCell % columns, bestScore, completedDepth,
+        nodes, isComplete);
   }
 
   /**
-   * Recursive minimax algorithm
-   * 
-   * @param g The game instance
+   * Recursive minimax algorithm. The result is clamped to [alpha, beta]: a value at alpha or beta
+   * is only a bound on the true score.
+   *
+   * @param b The bitboard to search, restored to its original state on return
+   * @param isMaximizingPlayer Whether the first player is to move
+   * @param depth Plies left to search, positions at depth 0 are scored by the evaluator
    * @return The best score of current recursion
    */
-  public static int minimax(Game g, int alpha, int beta) {
-
-    // Termination condition
-    int[] outcome = g.getGameOutcome();
-    if (outcome[0] == Game.FINISHED) {
-      return outcome[1];
-    }
-
-    // iterate
-    boolean isMaximizingPlayer = g.isMaximizingPlayerTurn();
-    int N = g.getBoard().getBoardSize();
-    for (int x = 0; x < N; x++) {
-      for (int y = 0; y < N; y++) {
-        g.getBoard().select(x, y);
-        if (g.getBoard().isCellEmpty()) {
-          g.play(x, y);
-          int score = minimax(g, alpha, beta);
-          if (isMaximizingPlayer) {
-            alpha = Math.max(score, alpha);
-          } else {
-            beta = Math.min(score, beta);
-          }
-          g.undoPreviousMove();
-
-          // pruning
-          if (beta <= alpha) {
-            break;
-          }
+  public int minimax(BitBoard b, boolean isMaximizingPlayer, int depth, int alpha, int beta) {
+    int symmetry = b.getCanonicalSymmetry();
+    long key = b.getCanonicalHash(isMaximizingPlayer);
+    // searching deeper than the number of empty cells is searching to the end
+    depth = Math.min(depth, b.getEmptyCellCount());
+    int alphaOrig = alpha;
+    int betaOrig = beta;
+
+    // narrow the window with what an earlier search learned about this position
+    long entry = table.probe(key);
+    if (counters != null) {
+      counters.probes++;
+      counters.hits += entry != TranspositionTable.MISS ? 1 : 0;
+    }
+    int ttMove = TranspositionTable.NO_MOVE;
+    if (entry != TranspositionTable.MISS
+        && TranspositionTable.move(entry) != TranspositionTable.NO_MOVE) {
+      ttMove = b.inverseTransformCell(symmetry, TranspositionTable.move(entry));
+    }
+    if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+      int stored = TranspositionTable.score(entry);
+      int bound = TranspositionTable.bound(entry);
+      if (bound == TranspositionTable.EXACT) {
+        return clamp(stored, alphaOrig, betaOrig);
+      } else if (bound == TranspositionTable.LOWER_BOUND) {
+        alpha = Math.max(alpha, stored);
+      } else {
+        beta = Math.min(beta, stored);
+      }
+      if (beta <= alpha) {
+        return clamp(stored, alphaOrig, betaOrig);
+      }
+    }
+
+    int bestCell = TranspositionTable.NO_MOVE;
+    int ply = b.getCellCount() - b.getEmptyCellCount();
+    int nMoves = orderMoves(b, ply, isMaximizingPlayer, ttMove);
+    int[] moves = ordering.getMoves(ply);
+    for (int i = 0; i < nMoves; i++) {
+      int cell = moves[i];
+      int score = scoreMove(b, cell, isMaximizingPlayer, depth, alpha, beta);
+      if (isAborted) {
+        // the score is meaningless, and must not reach the table
+        return 0;
+      }
+      if (isMaximizingPlayer) {
+        if (score > alpha) {
+          alpha = score;
+          bestCell = cell;
+        }
+      } else {
+        if (score < beta) {
+          beta = score;
+          bestCell = cell;
+        }
+      }
+
+      // pruning
+      if (beta <= alpha) {
+        ordering.recordCutoff(ply, isMaximizingPlayer, cell, depth);
+        if (counters != null) {
+          counters.cutoffs++;
+          counters.firstMoveCutoffs += i == 0 ? 1 : 0;
         }
+        break;
+      }
+    }
+
+    int result = isMaximizingPlayer ? alpha : beta;
+    int bound = result <= alphaOrig ? TranspositionTable.UPPER_BOUND
+        : result >= betaOrig ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+    if (bestCell != TranspositionTable.NO_MOVE) {
+      bestCell = b.transformCell(symmetry, bestCell);
+    }
+    table.store(key, depth, result, bound, bestCell);
+    return result;
+  }
+
+  /**
+   * Get the transposition table, e.g. to clear it or to read the counters of a
+   * {@link TranspositionTable}
+   *
+   * @return The table used by this AI
+   */
+  public TranspositionCache getTranspositionTable() {
+    return table;
+  }
+
+  /**
+   * Get the number of nodes searched by the last search
+   *
+   * @return The node count
+   */
+  public long getNodeCount() {
+    return nodes;
+  }
+
+  /**
+   * Collect the counts of the following searches, e.g. to publish them over JMX. Several AIs may
+   * share one instance.
+   *
+   * @param metrics The metrics to add every search to, or null to stop counting (the default)
+   */
+  public void setMetrics(SearchMetrics metrics) {
+    this.metrics = metrics;
+    this.counters = metrics != null ? new SearchMetrics.Counters() : null;
+  }
+
+  /**
+   * Report the progress of the following searches, e.g. to show the move the AI is thinking of.
+   * The listener runs on the searching thread after every completed iteration.
+   *
+   * @param listener Receives the best move of each iteration so far, or null for none
+   */
+  public void setProgressListener(Consumer<SearchResult> listener) {
+    this.progressListener = listener;
+  }
+
+  /**
+   * Get the metrics the searches are counted in
+   *
+   * @return The metrics, or null when they are off
+   */
+  public SearchMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Get the move ordering tables, e.g. to enable the history heuristic
+   *
+   * @return The move ordering of this AI
+   */
+  public MoveOrdering getMoveOrdering() {
+    return ordering;
+  }
+
+  /**
+   * Enable or disable move ordering, e.g. to measure its effect. Without it moves are searched in
+   * row-major order.
+   *
+   * @param isOrderingMoves True to order moves (the default)
+   */
+  public void setMoveOrdering(boolean isOrderingMoves) {
+    this.isOrderingMoves = isOrderingMoves;
+  }
+
+  /**
+   * Answer the positions of a book without searching. The book move is a perfect-play move but,
+   * unlike the search, not necessarily the lowest-index one among equally good moves.
+   *
+   * @param book The solved positions, or null to always search
+   */
+  public void setOpeningBook(OpeningBook book) {
+    this.book = book;
+  }
+
+  /**
+   * Get the evaluation used at the horizon
+   *
+   * @return The evaluator of this AI
+   */
+  public Evaluator getEvaluator() {
+    return evaluator;
+  }
+
+  /**
+   * Score of a position won by the player who just moved
+   *
+   * @param b The won position
+   * @param isMaximizingPlayer Whether the first player won
+   * @return WIN_SCORE plus the empty cell count, negated for the second player
+   */
+  static int winScore(BitBoard b, boolean isMaximizingPlayer) {
+    int score = WIN_SCORE + b.getEmptyCellCount();
+    return isMaximizingPlayer ? score : -score;
+  }
+
+  /**
+   * Synchronize the evaluator with a board before scoring moves on it directly
+   *
+   * @param b The board that scoreMove will be called on
+   */
+  void resetEvaluator(BitBoard b) {
+    evaluator.reset(b);
+  }
+
+  /**
+   * Search every root move to a fixed depth. Sets rootScore to the score of the best move.
+   *
+   * @param b The root position
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @param depth Plies to search
+   * @param isInvariant Which symmetries leave the root position unchanged
+   * @return The best cell, only meaningful if the search was not aborted
+   */
+  private int searchRoot(BitBoard b, boolean isMaximizingPlayerTurn, int depth,
+      boolean[] isInvariant) {
+    int symmetry = b.getCanonicalSymmetry();
+    long entry = table.probe(b.getCanonicalHash(isMaximizingPlayerTurn));
+    int ttMove = TranspositionTable.NO_MOVE;
+    if (entry != TranspositionTable.MISS
+        && TranspositionTable.move(entry) != TranspositionTable.NO_MOVE) {
+      ttMove = b.inverseTransformCell(symmetry, TranspositionTable.move(entry));
+    }
+
+    int firstCell = TranspositionTable.NO_MOVE;
+    int bestCell = TranspositionTable.NO_MOVE;
+    // scores of the player to move, -INFINITY leaves room for the tie-break window below
+    int bestScore = -INFINITY;
+
+    int ply = b.getCellCount() - b.getEmptyCellCount();
+    int nMoves = orderMoves(b, ply, isMaximizingPlayerTurn, ttMove);
+    int[] moves = ordering.getMoves(ply);
+    for (int i = 0; i < nMoves; i++) {
+      int cell = moves[i];
+      if (isSymmetricDuplicate(b, cell, isInvariant)) {
+        continue;
+      }
+      if (firstCell == TranspositionTable.NO_MOVE) {
+        firstCell = cell;
+      }
+      // a cell after the best one has to beat it, a cell before it only has to equal it, so that
+      // ties go to the lowest cell index whatever the search order
+      int lower = bestCell != TranspositionTable.NO_MOVE && cell < bestCell ? bestScore - 1
+          : bestScore;
+      int value = isMaximizingPlayerTurn ? scoreMove(b, cell, true, depth, lower, INFINITY)
+          : scoreMove(b, cell, false, depth, -INFINITY, -lower);
+      if (isAborted) {
+        break;
+      }
+      int score = isMaximizingPlayerTurn ? value : -value;
+      if (score > bestScore || (score == bestScore && cell < bestCell)) {
+        bestScore = score;
+        bestCell = cell;
+      }
+    }
+    if (bestCell == TranspositionTable.NO_MOVE) {
+      bestCell = firstCell;
+    }
+    bestScore = isMaximizingPlayerTurn ? bestScore : -bestScore;
+    rootScore = bestScore;
+    if (!isAborted) {
+      table.store(b.getCanonicalHash(isMaximizingPlayerTurn), depth, bestScore,
+          TranspositionTable.EXACT, b.transformCell(b.getCanonicalSymmetry(), bestCell));
+    }
+    return bestCell;
+  }
+
+  /**
+   * Fill the move buffer of a ply, ordered unless ordering is disabled
+   *
+   * @return The number of moves in the buffer
+   */
+  private int orderMoves(BitBoard b, int ply, boolean isMaximizingPlayer, int ttMove) {
+    return isOrderingMoves ? ordering.order(b, ply, isMaximizingPlayer, ttMove)
+        : ordering.unordered(b, ply);
+  }
+
+  /**
+   * Find the symmetries that leave a position unchanged
+   *
+   * @param b The position
+   * @return [symmetry] = true if the position is invariant under it (identity excluded)
+   */
+  static boolean[] invariantSymmetries(BitBoard b) {
+    boolean[] isInvariant = new boolean[Symmetry.COUNT];
+    for (int s = 1; s < Symmetry.COUNT; s++) {
+      isInvariant[s] = b.isInvariantUnder(s);
+    }
+    return isInvariant;
+  }
+
+  /**
+   * Check whether a root move is a mirror image of an earlier cell. When the position is invariant
+   * under a symmetry, a cell and its image lead to equivalent positions, so only the one with the
+   * lowest index is searched.
+   *
+   * @param b The root position
+   * @param cell The candidate cell
+   * @param isInvariant Which symmetries leave the root position unchanged
+   * @return True if an earlier cell is equivalent to this one
+   */
+  static boolean isSymmetricDuplicate(BitBoard b, int cell, boolean[] isInvariant) {
+    for (int s = 1; s < Symmetry.COUNT; s++) {
+      if (isInvariant[s] && b.transformCell(s, cell) < cell) {
+        return true;
       }
     }
-    return isMaximizingPlayer ? alpha : beta;
+    return false;
+  }
+
+  /**
+   * Play a move, score the resulting position and revert the move
+   *
+   * @param b The bitboard to search
+   * @param cell The empty cell to play
+   * @param isMaximizingPlayer Whether the first player makes the move
+   * @param depth Plies left to search, including this move
+   * @return The score of the position after the move
+   */
+  int scoreMove(BitBoard b, int cell, boolean isMaximizingPlayer, int depth, int alpha,
+      int beta) {
+    if (counters != null) {
+      counters.node(b.getCellCount() - b.getEmptyCellCount() - rootPly + 1);
+    }
+    if (++nodes >= maxNodes || ((nodes & (CHECK_INTERVAL - 1)) == 0
+        && (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()))) {
+      isAborted = true;
+      return 0;
+    }
+    b.play(cell, isMaximizingPlayer);
+    evaluator.played(b, cell, isMaximizingPlayer);
+    int score;
+    // Termination condition: only lines through the played cell can have been completed
+    if (b.isWinningCell(cell, isMaximizingPlayer)) {
+      score = winScore(b, isMaximizingPlayer);
+    } else if (b.getEmptyCellCount() == 0) {
+      score = 0; // draw
+    } else if (depth <= 1) {
+      score = evaluator.evaluate(b);
+    } else {
+      score = minimax(b, !isMaximizingPlayer, depth - 1, alpha, beta);
+    }
+    // revert the changes
+    b.undo(cell);
+    evaluator.undone(b, cell, isMaximizingPlayer);
+    return score;
+  }
+
+  /**
+   * Limit a score to the search window
+   */
+  private static int clamp(int score, int alpha, int beta) {
+    return Math.max(alpha, Math.min(beta, score));
   }
 }
@@ -1,10 +1,23 @@
 package tictactoe.ai;
 
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.junit.Assert;
 import org.junit.Test;
+import tictactoe.models.BitBoard;
 import tictactoe.models.Board;
 import tictactoe.models.Game;
+import tictactoe.models.PackedPosition;
 
 public class MinimaxAiTest {
   Game game;
@@ -41,9 +54,9 @@ public class MinimaxAiTest {
     game.play(1, 1); // Player O
     game.play(2, 2); // Player X
     game.play(1, 0); // Player O
-    // Now it's AI's turn, AI should choose position (2, 0) to block the opponent
+    // Now it's AI's turn, AI should choose position (1, 2) to block the opponent
     int[] bestMove = MinimaxAi.getBestMove(game);
-    int[] expected = {2, 1};
+    int[] expected = {1, 2};
     Assert.assertArrayEquals(expected, bestMove);
   }
 
@@ -66,4 +79,249 @@ public class MinimaxAiTest {
 
     });
   }
+
+  @Test
+  public void parallelSearchMatchesSequential() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      int[][] moves = {{1, 1}, {0, 0}, {2, 1}};
+      for (int[] move : moves) {
+        int[] expected = MinimaxAi.getBestMove(game);
+        Assert.assertArrayEquals(expected, new ParallelMinimaxAi(pool).findBestMove(game));
+        Assert.assertArrayEquals(expected, new ParallelMinimaxAi(pool, true).findBestMove(game));
+        game.play(move[0], move[1]);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void budgetedSearchStopsWithinNodeBudget() {
+    Game large = new Game(new Board(6));
+    large.play(2, 2);
+    SearchResult result = new MinimaxAi().search(large, SearchBudget.ofNodes(10_000));
+    Assert.assertTrue(result.getNodes() <= 10_000);
+    Assert.assertTrue(result.getDepth() >= 1);
+    Assert.assertFalse(result.isComplete());
+    int[] move = result.getMove();
+    large.play(move[0], move[1]); // must be a legal move
+  }
+
+  @Test
+  public void lineEvaluatorUpdatesIncrementally() {
+    BitBoard b = new BitBoard(5);
+    LineEvaluator incremental = new LineEvaluator();
+    LineEvaluator recounted = new LineEvaluator();
+    incremental.reset(b);
+    int[] cells = {12, 0, 6, 18, 7, 24};
+    boolean isMaximizingPlayer = true;
+    for (int cell : cells) {
+      b.play(cell, isMaximizingPlayer);
+      incremental.played(b, cell, isMaximizingPlayer);
+      recounted.reset(b);
+      Assert.assertEquals(recounted.evaluate(b), incremental.evaluate(b));
+      isMaximizingPlayer = !isMaximizingPlayer;
+    }
+    b.undo(24);
+    incremental.undone(b, 24, false);
+    recounted.reset(b);
+    Assert.assertEquals(recounted.evaluate(b), incremental.evaluate(b));
+    Assert.assertTrue(incremental.evaluate(b) > 0);
+  }
+
+  @Test
+  public void moveOrderingKeepsMovesAndSavesNodes() {
+    Game large = new Game(new Board(4));
+    large.play(1, 1);
+    MinimaxAi ordered = new MinimaxAi();
+    MinimaxAi unordered = new MinimaxAi();
+    unordered.setMoveOrdering(false);
+    SearchResult expected = unordered.search(large, SearchBudget.unlimited());
+    SearchResult actual = ordered.search(large, SearchBudget.unlimited());
+    Assert.assertArrayEquals(expected.getMove(), actual.getMove());
+    Assert.assertEquals(expected.getScore(), actual.getScore());
+    Assert.assertTrue(actual.getNodes() < expected.getNodes());
+  }
+
+  @Test
+  public void openingBookMatchesSearch() throws IOException {
+    Path path = Files.createTempFile("tictactoe", ".book");
+    try {
+      OpeningBookBuilder builder = new OpeningBookBuilder();
+      Assert.assertEquals(627, builder.solve(3));
+      builder.write(path, 3, 9);
+      OpeningBook book = OpeningBook.load(path);
+      MinimaxAi ai = new MinimaxAi();
+      ai.setOpeningBook(book);
+      int[][] moves = {{1, 1}, {0, 0}, {2, 2}, {0, 2}};
+      for (int[] move : moves) {
+        SearchResult expected = new MinimaxAi().search(game, SearchBudget.unlimited());
+        SearchResult actual = ai.search(game, SearchBudget.unlimited());
+        Assert.assertEquals(expected.getScore(), actual.getScore());
+        Assert.assertEquals(0, actual.getNodes());
+        game.play(move[0], move[1]);
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void corruptOpeningBookIsRejected() throws IOException {
+    Path path = Files.createTempFile("tictactoe", ".book");
+    try {
+      OpeningBookBuilder builder = new OpeningBookBuilder();
+      builder.solve(3);
+      builder.write(path, 3, 9);
+      byte[] bytes = Files.readAllBytes(path);
+      ByteBuffer header = ByteBuffer.wrap(bytes);
+      int slots = 1 << header.getInt(20);
+
+      // a book without an empty slot would make every miss probe forever
+      header.putInt(16, slots);
+      Files.write(path, bytes);
+      Assert.assertThrows(IllegalArgumentException.class, () -> OpeningBook.load(path));
+
+      // the empty board is in the book; give it a move off the board
+      header.putInt(16, 627);
+      long key = new BitBoard(3).getCanonicalHash(true);
+      int slot = OpeningBook.slotOf(key, slots - 1);
+      while (header.getLong(OpeningBook.HEADER_BYTES + slot * OpeningBook.SLOT_BYTES) != key) {
+        slot = (slot + 1) & (slots - 1);
+      }
+      bytes[OpeningBook.HEADER_BYTES + slot * OpeningBook.SLOT_BYTES + 8] = 10;
+      Files.write(path, bytes);
+      OpeningBook book = OpeningBook.load(path);
+      Assert.assertThrows(IllegalStateException.class, () -> book.lookup(new BitBoard(3), true));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void batchSearchDeduplicatesSymmetricPositions() {
+    // the same opening in all four corners, a centre opening and a repeat of the first position
+    int[][] openings = {{0, 0}, {0, 2}, {2, 2}, {2, 0}, {1, 1}, {0, 0}};
+    long[] positions = new long[openings.length];
+    for (int i = 0; i < openings.length; i++) {
+      game.resetGame();
+      game.play(openings[i][0], openings[i][1]);
+      positions[i] = PackedPosition.encode(game);
+    }
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      SearchResult[] results = new BatchAi(pool).findBestMoves(3, positions);
+      int searched = 0;
+      for (int i = 0; i < openings.length; i++) {
+        game.resetGame();
+        game.play(openings[i][0], openings[i][1]);
+        BitBoard decoded = new BitBoard(3);
+        PackedPosition.decode(positions[i], decoded);
+        Assert.assertEquals(game.getHash(),
+            decoded.getHash(PackedPosition.isMaximizingPlayerTurn(positions[i])));
+        Assert.assertEquals(new MinimaxAi().search(game, SearchBudget.unlimited()).getScore(),
+            results[i].getScore());
+        // the mapped move must be as good as the searched one
+        game.play(results[i].getX(), results[i].getY());
+        Assert.assertEquals(0, new MinimaxAi().search(game, SearchBudget.unlimited()).getScore());
+        searched += results[i].getNodes() > 0 ? 1 : 0;
+      }
+      Assert.assertEquals(2, searched);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void metricsCountTheSearches() throws Exception {
+    Game large = new Game(new Board(4));
+    large.play(1, 1);
+    SearchResult expected = new MinimaxAi().search(large, SearchBudget.ofDepth(5));
+    MinimaxAi ai = new MinimaxAi();
+    SearchMetrics metrics = new SearchMetrics();
+    ai.setMetrics(metrics);
+    SearchResult actual = ai.search(large, SearchBudget.ofDepth(5));
+    Assert.assertArrayEquals(expected.getMove(), actual.getMove());
+    Assert.assertEquals(expected.getNodes(), actual.getNodes());
+
+    Assert.assertEquals(1, metrics.getSearches());
+    Assert.assertEquals(actual.getNodes(), metrics.getNodes());
+    long[] nodesByDepth = metrics.getNodesByDepth();
+    Assert.assertEquals(6, nodesByDepth.length);
+    Assert.assertEquals(actual.getNodes(), Arrays.stream(nodesByDepth).sum());
+    Assert.assertTrue(metrics.getCutoffs() > 0);
+    Assert.assertTrue(metrics.getFirstMoveCutoffRate() > 0.5);
+    Assert.assertTrue(metrics.getTableHitRate() > 0);
+    Assert.assertTrue(metrics.toJson().startsWith("{\"searches\":1,\"nodes\":"));
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = metrics.register("metricsCountTheSearches");
+    try {
+      Assert.assertEquals(actual.getNodes(), server.getAttribute(name, "Nodes"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  @Test
+  public void interruptStopsTheSearchWithTheBestMoveSoFar() {
+    Game large = new Game(new Board(7));
+    large.play(3, 3);
+    MinimaxAi ai = new MinimaxAi();
+    List<Integer> depths = new ArrayList<>();
+    ai.setProgressListener(best -> {
+      depths.add(best.getDepth());
+      if (best.getDepth() == 2) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    try {
+      SearchResult result = ai.search(large, SearchBudget.ofMillis(60_000));
+      Assert.assertTrue(Thread.currentThread().isInterrupted());
+      Assert.assertEquals(Arrays.asList(1, 2), depths);
+      Assert.assertEquals(2, result.getDepth());
+      Assert.assertTrue(large.getBoard().isCellEmpty(result.getX(), result.getY()));
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void ponderingAnswersAPredictedReplyAtOnce() throws InterruptedException {
+    Game large = new Game(new Board(5));
+    PonderingAi ai = new PonderingAi(new SharedTranspositionTable(16), 300);
+    int[] move = ai.search(large, SearchBudget.ofMillis(100)).getMove();
+    large.play(move[0], move[1]);
+    BitBoard predicted;
+    while ((predicted = ai.getPredictedPosition()) == null) {
+      Thread.sleep(10);
+    }
+    int reply = 0;
+    while (predicted.read(reply) == large.getBoard().getBitBoard().read(reply)) {
+      reply++;
+    }
+    large.play(reply / 5, reply % 5);
+    Thread.sleep(600); // the pondering search is over by now
+
+    long start = System.nanoTime();
+    SearchResult result = ai.search(large, SearchBudget.ofMillis(10_000));
+    Assert.assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    Assert.assertEquals(1, ai.getPonderHits());
+    large.play(result.getX(), result.getY());
+
+    // any reply but the predicted one is a miss and searched normally
+    while ((predicted = ai.getPredictedPosition()) == null) {
+      Thread.sleep(10);
+    }
+    reply = 0;
+    while (!large.getBoard().getBitBoard().isEmpty(reply)
+        || predicted.read(reply) != large.getBoard().getBitBoard().read(reply)) {
+      reply++;
+    }
+    large.play(reply / 5, reply % 5);
+    ai.search(large, SearchBudget.ofMillis(50));
+    Assert.assertEquals(1, ai.getPonderMisses());
+    ai.stopPondering();
+  }
 }
@@ -0,0 +1,290 @@
+package tictactoe.ai;
+
+import tictactoe.models.BitBoard;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * Orders the moves of a node so alphabeta finds cutoffs early. Moves are tried in this order:
+ * <ol>
+ * <li>the best move stored in the transposition table,</li>
+ * <li>the two killer moves of the ply (recent cutoff moves at the same depth of the tree),</li>
+ * <li>moves by history score (how often and how deep each cell caused a cutoff),</li>
+ * <li>static rank: cells on more winning lines first, then cells closer to the center.</li>
+ * </ol>
+ *
+ * The history heuristic is off by default: on the 3x3 to 5x5 boards nearly every cell causes
+ * cutoffs somewhere in the tree, and ranking by history before the static rank searched more nodes
+ * than the static rank alone (see {@link #main(String[])}). Enable it to measure larger boards.
+ *
+ * The cells are sorted by static rank once per board shape, so without the history heuristic a node
+ * is ordered in one pass over the board; only history scores need a sort per node. The tables are
+ * allocated once per board size. The move buffer of a ply is allocated the first
+ * time the ply is searched, sized for its empty cells, since a search only reaches the plies from
+ * its root down to its depth; after that, ordering a node never allocates. Instances are not
+ * thread-safe.
+ */
+public class MoveOrdering {
+  private static final int HISTORY_LIMIT = 1 << 18; // history scores are halved past this value
+  private boolean isUsingHistory = false; // Whether history ranks moves before the static rank
+  private int nCells = -1; // cell count the tables are sized for
+  private int rows; // number of rows of the board the static rank is built for
+  private int winLength; // win length of the board the static rank is built for
+  private int[] staticRank; // [cell] = static priority, higher first
+  private int[] rankedCells; // [i] = cells by decreasing static rank
+  private int historyShift; // bits of the static rank, below the history score in a sort key
+  private int historyLimit; // history scores are halved past this value, keeps keys positive
+  private int[][] killers; // [ply][2] = cells that caused the latest cutoffs at that ply
+  private int[][] history; // [side][cell] = accumulated cutoff score
+  private int[][] moves; // [ply][i] = ordered moves of the node at that ply, null until used
+  private int[][] keys; // [ply][i] = sort key of moves[ply][i], null until used
+
+  /**
+   * Fill the move buffer of a ply with the empty cells of the position, best candidates first
+   *
+   * @param b The position
+   * @param ply Number of marks on the board, identifies the buffer
+   * @param isMaximizingPlayer Whether the first player is to move
+   * @param ttMove The best move from the transposition table, or {@link TranspositionTable#NO_MOVE}
+   * @return The number of moves written to {@link #getMoves(int)}
+   */
+  public int order(BitBoard b, int ply, boolean isMaximizingPlayer, int ttMove) {
+    prepare(b);
+    int[] plyMoves = movesOf(ply);
+    int[] plyKillers = killers[ply];
+    int n = 0;
+    if (isLegal(b, ttMove)) {
+      plyMoves[n++] = ttMove;
+    }
+    for (int killer : plyKillers) {
+      if (killer != ttMove && isLegal(b, killer)) {
+        plyMoves[n++] = killer;
+      }
+    }
+    int first = n; // moves from here on are ranked by history score and static rank
+    if (!isUsingHistory) {
+      // the cells are walked in static rank order, so no sorting is needed
+      for (int cell : rankedCells) {
+        if (b.isEmpty(cell) && cell != ttMove && cell != plyKillers[0] && cell != plyKillers[1]) {
+          plyMoves[n++] = cell;
+        }
+      }
+      return n;
+    }
+    int[] plyKeys = keys[ply];
+    if (plyKeys == null) {
+      plyKeys = keys[ply] = new int[nCells - ply];
+    }
+    int[] sideHistory = history[isMaximizingPlayer ? 0 : 1];
+    for (int cell : rankedCells) {
+      if (!b.isEmpty(cell) || cell == ttMove || cell == plyKillers[0] || cell == plyKillers[1]) {
+        continue;
+      }
+      int key = (sideHistory[cell] << historyShift) | staticRank[cell];
+      // insertion sort; the cells come in static rank order, so it only moves cells that have a
+      // history score past the ones that do not
+      int i = n++;
+      while (i > first && plyKeys[i - 1] < key) {
+        plyKeys[i] = plyKeys[i - 1];
+        plyMoves[i] = plyMoves[i - 1];
+        i--;
+      }
+      plyKeys[i] = key;
+      plyMoves[i] = cell;
+    }
+    return n;
+  }
+
+  /**
+   * Fill the move buffer of a ply with the empty cells in row-major order, without any ordering
+   *
+   * @param b The position
+   * @param ply Number of marks on the board, identifies the buffer
+   * @return The number of moves written to {@link #getMoves(int)}
+   */
+  public int unordered(BitBoard b, int ply) {
+    prepare(b);
+    int[] plyMoves = movesOf(ply);
+    int n = 0;
+    for (int cell = 0; cell < nCells; cell++) {
+      if (b.isEmpty(cell)) {
+        plyMoves[n++] = cell;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Get the move buffer filled by the last order or unordered call for a ply
+   *
+   * @param ply Number of marks on the board
+   * @return The shared buffer, valid until the next call for the same ply
+   */
+  public int[] getMoves(int ply) {
+    return moves[ply];
+  }
+
+  /**
+   * Remember a move that caused a beta cutoff
+   *
+   * @param ply Number of marks on the board at the node
+   * @param isMaximizingPlayer Whether the first player made the move
+   * @param cell The move
+   * @param depth Plies that were left to search at the node
+   */
+  public void recordCutoff(int ply, boolean isMaximizingPlayer, int cell, int depth) {
+    int[] plyKillers = killers[ply];
+    if (plyKillers[0] != cell) {
+      plyKillers[1] = plyKillers[0];
+      plyKillers[0] = cell;
+    }
+    if (!isUsingHistory) {
+      return;
+    }
+    int[] sideHistory = history[isMaximizingPlayer ? 0 : 1];
+    sideHistory[cell] = (int) Math.min(sideHistory[cell] + (long) depth * depth, 2L * historyLimit);
+    if (sideHistory[cell] > historyLimit) {
+      // age every score so that recent cutoffs keep their weight
+      for (int[] side : history) {
+        for (int i = 0; i < side.length; i++) {
+          side[i] >>= 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Enable or disable the history heuristic
+   *
+   * @param isUsingHistory True to rank moves by history score before the static rank
+   */
+  public void setHistoryHeuristic(boolean isUsingHistory) {
+    this.isUsingHistory = isUsingHistory;
+  }
+
+  /**
+   * Forget the killer moves and history scores
+   */
+  public void clear() {
+    nCells = -1;
+  }
+
+  /**
+   * Allocate the tables when the board shape changes
+   *
+   * @param b The position about to be ordered
+   */
+  private void prepare(BitBoard b) {
+    if (b.getCellCount() == nCells && b.getRowCount() == rows && b.getWinLength() == winLength) {
+      return;
+    }
+    nCells = b.getCellCount();
+    rows = b.getRowCount();
+    winLength = b.getWinLength();
+    staticRank = buildStaticRank(b);
+    rankedCells = new int[nCells];
+    for (int cell = 0; cell < nCells; cell++) {
+      rankedCells[nCells - staticRank[cell]] = cell;
+    }
+    // ranks go up to nCells; a score stays below 2 * historyLimit, so that a history key never
+    // overflows into the sign bit
+    historyShift = 32 - Integer.numberOfLeadingZeros(nCells);
+    historyLimit = Math.min(HISTORY_LIMIT, (Integer.MAX_VALUE >>> (historyShift + 1)) - 1);
+    killers = new int[nCells + 1][2];
+    for (int[] plyKillers : killers) {
+      plyKillers[0] = TranspositionTable.NO_MOVE;
+      plyKillers[1] = TranspositionTable.NO_MOVE;
+    }
+    history = new int[2][nCells];
+    moves = new int[nCells + 1][];
+    keys = new int[nCells + 1][];
+  }
+
+  /**
+   * Check whether a move from the table or the killers can be played in the position
+   */
+  private boolean isLegal(BitBoard b, int cell) {
+    // a table entry of a colliding position may hold any cell
+    return cell >= 0 && cell < nCells && b.isEmpty(cell);
+  }
+
+  /**
+   * Get the move buffer of a ply, allocated on first use
+   */
+  private int[] movesOf(int ply) {
+    int[] plyMoves = moves[ply];
+    if (plyMoves == null) {
+      // ply marks leave nCells - ply empty cells
+      plyMoves = moves[ply] = new int[nCells - ply];
+    }
+    return plyMoves;
+  }
+
+  /**
+   * Rank the cells by the number of winning lines through them, then by closeness to the center
+   *
+   * @param b A board of the size to rank
+   * @return [cell] = rank, from nCells (best) down to 1
+   */
+  private static int[] buildStaticRank(BitBoard b) {
+    int rows = b.getRowCount();
+    int columns = b.getColumnCount();
+    int cells = b.getCellCount();
+    // twice the squared distance to the center, so that it stays integral on even boards
+    int[] order = new int[cells];
+    long[] priority = new long[cells];
+    for (int cell = 0; cell < cells; cell++) {
+      int dx = 2 * (cell / columns) - (rows - 1);
+      int dy = 2 * (cell % columns) - (columns - 1);
+      int lines = b.getLinesThrough(cell).length;
+      priority[cell] = ((long) lines << 40) - ((long) (dx * dx + dy * dy) << 16) - cell;
+      order[cell] = cell;
+    }
+    int[] rank = new int[cells];
+    for (int i = 0; i < cells; i++) {
+      int best = i;
+      for (int j = i + 1; j < cells; j++) {
+        if (priority[order[j]] > priority[order[best]]) {
+          best = j;
+        }
+      }
+      int tmp = order[i];
+      order[i] = order[best];
+      order[best] = tmp;
+      rank[order[i]] = cells - i;
+    }
+    return rank;
+  }
+
+  /**
+   * Report the nodes searched over a full self-played game without move ordering, with the default
+   * ordering and with the history heuristic added
+   *
+   * @param args Board sizes to report (default 3 4 5), boards above 4 are searched to depth 6
+   */
+  public static void main(String[] args) {
+    int[] sizes = args.length == 0 ? new int[] {3, 4, 5} : new int[args.length];
+    for (int i = 0; i < args.length; i++) {
+      sizes[i] = Integer.parseInt(args[i]);
+    }
+    for (int N : sizes) {
+      SearchBudget budget = N <= 4 ? SearchBudget.unlimited() : SearchBudget.ofDepth(6);
+      long[] nodes = new long[3];
+      for (int mode = 0; mode < nodes.length; mode++) {
+        MinimaxAi ai = new MinimaxAi();
+        ai.setMoveOrdering(mode > 0);
+        ai.getMoveOrdering().setHistoryHeuristic(mode == 2);
+        Game g = new Game(new Board(N));
+        // a full game, so that every stage of the game is measured
+        while (!g.isFinished()) {
+          SearchResult result = ai.search(g, budget);
+          nodes[mode] += result.getNodes();
+          g.play(result.getX(), result.getY());
+        }
+      }
+      System.out.printf(
+          "%dx%d: unordered %d nodes, ordered %d (%.1f%%), with history %d (%.1f%%)%n", N, N,
+          nodes[0], nodes[1], 100.0 * nodes[1] / nodes[0], nodes[2], 100.0 * nodes[2] / nodes[0]);
+    }
+  }
+}
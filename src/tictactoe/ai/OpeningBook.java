@@ -0,0 +1,170 @@
+package tictactoe.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import tictactoe.models.BitBoard;
+
+/**
+ * Perfect-play answers for positions solved ahead of time by {@link OpeningBookBuilder}. The file
+ * is memory-mapped and read in place, so loading is cheap and a lookup is a hash probe.
+ *
+ * File layout, big-endian:
+ * <ul>
+ * <li>header: magic, version, board size, deepest stored ply, entry count, log2 of the slot count,
+ * and a check hash that ties the file to the Zobrist keys of the board size;</li>
+ * <li>slots, open addressing with linear probing: canonical hash (8 bytes), best move in the
+ * canonical orientation plus one (1 byte, 0 marks an empty slot) and the encoded value (1 byte:
+ * 0 for a draw, +/-(empty cells + 1) for a win of the first/second player).</li>
+ * </ul>
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class OpeningBook {
+  static final int MAGIC = 0x54545442; // "TTTB"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+  static final int SLOT_BYTES = 10;
+  private final ByteBuffer buffer; // mapped file, read with absolute gets only
+  private final int N; // board size the book was solved for
+  private final int maxPly; // positions with more marks than this are not in the book
+  private final int size; // number of stored positions
+  private final int mask; // slot count - 1
+
+  private OpeningBook(ByteBuffer buffer) {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not an opening book");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported opening book version " + buffer.getInt(4));
+    }
+    this.N = buffer.getInt(8);
+    this.maxPly = buffer.getInt(12);
+    this.size = buffer.getInt(16);
+    int slotBits = buffer.getInt(20);
+    if (N < 1 || slotBits < 0 || slotBits > 30
+        || buffer.capacity() != HEADER_BYTES + ((long) SLOT_BYTES << slotBits)) {
+      throw new IllegalArgumentException("Corrupted opening book");
+    }
+    if (buffer.getLong(24) != checkHash(N)) {
+      throw new IllegalArgumentException("Opening book was built with different hash keys");
+    }
+    this.mask = (1 << slotBits) - 1;
+    if (size < 1 || size > mask) {
+      // a lookup stops at the first empty slot, so a book needs at least one
+      throw new IllegalArgumentException("Corrupted opening book: " + size + " entries in "
+          + (mask + 1L) + " slots");
+    }
+  }
+
+  /**
+   * Map a book file into memory
+   *
+   * @param path The file written by {@link OpeningBookBuilder}
+   * @return The book
+   * @throws IOException when the file cannot be read
+   * @throws IllegalArgumentException when the file is not a valid book
+   */
+  public static OpeningBook load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Look up the perfect-play move of a position
+   *
+   * @param b The position
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @return The best move and exact score, or null when the position is not in the book
+   * @throws IllegalStateException when the stored move is not a cell of the board
+   */
+  public SearchResult lookup(BitBoard b, boolean isMaximizingPlayerTurn) {
+    if (!b.isClassic() || b.getBoardSize() != N
+        || b.getCellCount() - b.getEmptyCellCount() > maxPly) {
+      return null;
+    }
+    long key = b.getCanonicalHash(isMaximizingPlayerTurn);
+    // the header promises an empty slot, but the probe is bounded in case the slots disagree
+    int slot = slotOf(key, mask);
+    for (int probes = 0; probes <= mask; probes++, slot = (slot + 1) & mask) {
+      int offset = HEADER_BYTES + slot * SLOT_BYTES;
+      int move = (buffer.get(offset + 8) & 0xff) - 1;
+      if (move < 0) {
+        return null;
+      }
+      if (buffer.getLong(offset) == key) {
+        if (move >= N * N) {
+          throw new IllegalStateException("Corrupted opening book: move " + move + " in slot "
+              + slot);
+        }
+        int cell = b.inverseTransformCell(b.getCanonicalSymmetry(), move);
+        int empties = b.getEmptyCellCount();
+        return new SearchResult(cell / N, cell % N, decodeValue(buffer.get(offset + 9)), empties,
+            0, true);
+      }
+    }
+    return null;
+  }
+
+  public int getBoardSize() {
+    return N;
+  }
+
+  /**
+   * Get the deepest ply stored in the book
+   *
+   * @return The highest number of marks of a stored position
+   */
+  public int getMaxPly() {
+    return maxPly;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Home slot of a key
+   */
+  static int slotOf(long key, int mask) {
+    // Zobrist hashes are uniform, mixing only spreads the low bits of the canonical minimum
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+  }
+
+  /**
+   * Hash that changes whenever the Zobrist keys of the board size change
+   */
+  static long checkHash(int N) {
+    BitBoard b = new BitBoard(N);
+    b.play(0, true);
+    b.play(b.getCellCount() - 1, false);
+    return b.getHash(true);
+  }
+
+  /**
+   * Encode an exact score into a byte
+   */
+  static byte encodeValue(int score) {
+    if (score == 0) {
+      return 0;
+    }
+    int distance = Math.abs(score) - MinimaxAi.WIN_SCORE + 1;
+    return (byte) (score > 0 ? distance : -distance);
+  }
+
+  /**
+   * Decode a byte written by encodeValue
+   */
+  static int decodeValue(byte value) {
+    if (value == 0) {
+      return 0;
+    }
+    int score = MinimaxAi.WIN_SCORE + Math.abs(value) - 1;
+    return value > 0 ? score : -score;
+  }
+}
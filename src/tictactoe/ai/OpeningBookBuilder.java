@@ -0,0 +1,202 @@
+package tictactoe.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import tictactoe.models.BitBoard;
+
+/**
+ * Solves every position reachable from the empty board and writes the results as an
+ * {@link OpeningBook} file. Each position is solved once, up to symmetry: the solver is a plain
+ * minimax (no pruning, so every value is exact) memoized on the canonical hash.
+ *
+ * The memo grows with the number of reachable positions: 3x3 has 627 positions to solve, 4x4 about
+ * 1.1 million (a few seconds, a 20 MB book). Larger boards are out of reach.
+ */
+public class OpeningBookBuilder {
+  private static final double MAX_LOAD = 0.75; // slot occupancy that triggers a resize
+  private long[] keys; // canonical hashes of the solved positions
+  private int[] data; // (canonical move + 1) << 8 | encoded value, 0 for an empty slot
+  private byte[] plies; // number of marks of each solved position
+  private int size; // number of solved positions
+
+  public OpeningBookBuilder() {
+    allocate(1 << 10);
+  }
+
+  /**
+   * Solve every position of a board size
+   *
+   * @param N The board size
+   * @return The number of positions solved, terminal positions excluded
+   */
+  public int solve(int N) {
+    if (N < 1 || N > 11) {
+      throw new IllegalArgumentException("Board size out of range: " + N);
+    }
+    allocate(1 << 10);
+    solve(new BitBoard(N), true);
+    return size;
+  }
+
+  /**
+   * Write the solved positions to a book file
+   *
+   * @param path The file to write, replaced if it exists
+   * @param N The board size passed to solve
+   * @param maxPly Positions with more marks than this are left out
+   * @throws IOException when the file cannot be written
+   */
+  public void write(Path path, int N, int maxPly) throws IOException {
+    int count = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (data[i] != 0 && plies[i] <= maxPly) {
+        count++;
+      }
+    }
+    int slotBits = 0;
+    while ((1 << slotBits) * MAX_LOAD <= count) {
+      slotBits++;
+    }
+    int mask = (1 << slotBits) - 1;
+    ByteBuffer slots = ByteBuffer.allocate(OpeningBook.SLOT_BYTES << slotBits);
+    for (int i = 0; i < keys.length; i++) {
+      if (data[i] == 0 || plies[i] > maxPly) {
+        continue;
+      }
+      int slot = OpeningBook.slotOf(keys[i], mask);
+      while (slots.get(slot * OpeningBook.SLOT_BYTES + 8) != 0) {
+        slot = (slot + 1) & mask;
+      }
+      int offset = slot * OpeningBook.SLOT_BYTES;
+      slots.putLong(offset, keys[i]);
+      slots.put(offset + 8, (byte) (data[i] >>> 8));
+      slots.put(offset + 9, (byte) data[i]);
+    }
+    ByteBuffer header = ByteBuffer.allocate(OpeningBook.HEADER_BYTES);
+    header.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putInt(N).putInt(maxPly)
+        .putInt(count).putInt(slotBits).putLong(OpeningBook.checkHash(N)).flip();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      while (slots.hasRemaining()) {
+        channel.write(slots);
+      }
+    }
+  }
+
+  /**
+   * Exact score of a position, memoized on its canonical hash
+   *
+   * @param b The position, restored on return
+   * @param isMaximizingPlayer Whether the first player is to move
+   * @return The score from the first player's point of view
+   */
+  private int solve(BitBoard b, boolean isMaximizingPlayer) {
+    long key = b.getCanonicalHash(isMaximizingPlayer);
+    int slot = find(key);
+    if (data[slot] != 0) {
+      return OpeningBook.decodeValue((byte) data[slot]);
+    }
+    // try the cells in canonical order, so the stored move does not depend on the orientation
+    // the position was first reached in
+    int symmetry = b.getCanonicalSymmetry();
+    int bestScore = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    int bestMove = TranspositionTable.NO_MOVE;
+    for (int canonicalCell = 0; canonicalCell < b.getCellCount(); canonicalCell++) {
+      int cell = b.inverseTransformCell(symmetry, canonicalCell);
+      if (!b.isEmpty(cell)) {
+        continue;
+      }
+      b.play(cell, isMaximizingPlayer);
+      int score;
+      if (b.isWinningCell(cell, isMaximizingPlayer)) {
+        score = MinimaxAi.winScore(b, isMaximizingPlayer);
+      } else if (b.getEmptyCellCount() == 0) {
+        score = 0;
+      } else {
+        score = solve(b, !isMaximizingPlayer);
+      }
+      b.undo(cell);
+      if (isMaximizingPlayer ? score > bestScore : score < bestScore) {
+        bestScore = score;
+        bestMove = canonicalCell;
+      }
+    }
+    // the recursion may have resized the table
+    slot = find(key);
+    keys[slot] = key;
+    data[slot] = ((bestMove + 1) << 8) | (OpeningBook.encodeValue(bestScore) & 0xff);
+    plies[slot] = (byte) (b.getCellCount() - b.getEmptyCellCount());
+    if (++size > keys.length * MAX_LOAD) {
+      grow();
+    }
+    return bestScore;
+  }
+
+  /**
+   * Find the slot holding a key, or the empty slot where it belongs
+   */
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = OpeningBook.slotOf(key, mask);
+    while (data[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    data = new int[capacity];
+    plies = new byte[capacity];
+    size = 0;
+  }
+
+  /**
+   * Double the memo and rehash every entry
+   */
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldData = data;
+    byte[] oldPlies = plies;
+    int oldSize = size;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldData[i] != 0) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        data[slot] = oldData[i];
+        plies[slot] = oldPlies[i];
+      }
+    }
+    size = oldSize;
+  }
+
+  /**
+   * Solve a board size and write its book
+   *
+   * @param args Board size, output file, and optionally the deepest ply to write (default: all)
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: OpeningBookBuilder <N> <file> [maxPly]");
+      System.exit(1);
+    }
+    int N = Integer.parseInt(args[0]);
+    Path path = Paths.get(args[1]);
+    int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : N * N;
+    OpeningBookBuilder builder = new OpeningBookBuilder();
+    long start = System.nanoTime();
+    int solved = builder.solve(N);
+    builder.write(path, N, maxPly);
+    OpeningBook book = OpeningBook.load(path);
+    System.out.printf("%dx%d: %d positions solved in %d ms, %d written to %s%n", N, N, solved,
+        (System.nanoTime() - start) / 1_000_000, book.size(), path);
+  }
+}
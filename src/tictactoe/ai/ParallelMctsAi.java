@@ -0,0 +1,119 @@
+package tictactoe.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Game;
+
+/**
+ * Root-parallel Monte Carlo Tree Search: every worker grows its own {@link MctsAi} tree from the
+ * same position, on its own pool thread and with its own playout seed, and the visits and results
+ * of the root moves are summed over the trees to pick the move. The trees share nothing, so there
+ * is no locking; each one keeps its subtree between moves like a single MctsAi.
+ *
+ * The iteration budget is split across the workers, the first ones taking one iteration more for
+ * the remainder, so the total matches a single tree's; a budget of fewer iterations than workers
+ * grows only that many trees. The time budget applies to each worker.
+ */
+public class ParallelMctsAi implements Engine {
+  private final ForkJoinPool pool;
+  private final MctsAi[] workers; // one tree per worker
+
+  /**
+   * Initialize a search with one tree per thread of the pool and pools of the default size
+   *
+   * @param pool The pool to run the workers on
+   */
+  public ParallelMctsAi(ForkJoinPool pool) {
+    this(pool, pool.getParallelism(), MctsAi.DEFAULT_CAPACITY, System.nanoTime());
+  }
+
+  /**
+   * Initialize a search
+   *
+   * @param pool The pool to run the workers on
+   * @param trees The number of trees, usually the parallelism of the pool
+   * @param capacity The number of nodes of each tree
+   * @param seed The seed of the playouts, each tree derives its own from it
+   */
+  public ParallelMctsAi(ForkJoinPool pool, int trees, int capacity, long seed) {
+    if (trees < 1) {
+      throw new IllegalArgumentException("At least one tree is needed");
+    }
+    this.pool = pool;
+    this.workers = new MctsAi[trees];
+    for (int i = 0; i < trees; i++) {
+      workers[i] = new MctsAi(capacity, seed + i);
+    }
+  }
+
+  /**
+   * Computes the next best move within a budget
+   *
+   * @param g The current Game instance, left untouched
+   * @param budget The iteration and time limits, the iterations are shared by the trees
+   * @return The move most visited over all trees, and the iterations of all trees
+   * @throws IllegalArgumentException when the run with a finished game
+   */
+  @Override
+  public SearchResult search(Game g, SearchBudget budget) {
+    if (g.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    BitBoard position = new BitBoard(g.getBoard().getBitBoard());
+    boolean isMaximizingPlayerTurn = g.isMaximizingPlayerTurn();
+    long maxIterations = budget.isUnbounded() ? MctsAi.DEFAULT_ITERATIONS : budget.getMaxNodes();
+    // a tree always runs at least one iteration, so grow no more trees than there are iterations
+    int trees = (int) Math.max(1, Math.min(workers.length, maxIterations));
+    long[] iterations = new long[trees];
+    List<RecursiveAction> tasks = new ArrayList<>();
+    for (int i = 0; i < trees; i++) {
+      int worker = i;
+      SearchBudget share = share(budget, maxIterations, worker, trees);
+      tasks.add(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          iterations[worker] = workers[worker].grow(position, isMaximizingPlayerTurn, share);
+        }
+      });
+    }
+    pool.invoke(new RecursiveAction() {
+      @Override
+      protected void compute() {
+        invokeAll(tasks);
+      }
+    });
+
+    int[] visitsByCell = new int[position.getCellCount()];
+    double[] winsByCell = new double[position.getCellCount()];
+    long total = 0;
+    int depth = 0;
+    for (int i = 0; i < trees; i++) {
+      workers[i].addRootStatistics(visitsByCell, winsByCell);
+      total += iterations[i];
+      depth = Math.max(depth, workers[i].getMaxDepth());
+    }
+    return MctsAi.bestMove(position.getColumnCount(), isMaximizingPlayerTurn, visitsByCell,
+        winsByCell, depth, total);
+  }
+
+  /**
+   * Budget of a worker
+   *
+   * @param budget The budget of the search
+   * @param maxIterations The iterations of the search, or Long.MAX_VALUE for a time budget
+   * @param worker The index of the worker
+   * @param trees The number of trees grown
+   * @return The budget with the worker's share of the iterations
+   */
+  private static SearchBudget share(SearchBudget budget, long maxIterations, int worker,
+      int trees) {
+    if (maxIterations == Long.MAX_VALUE) {
+      return budget;
+    }
+    long remainder = maxIterations % trees;
+    return budget.withMaxNodes(maxIterations / trees + (worker < remainder ? 1 : 0));
+  }
+}
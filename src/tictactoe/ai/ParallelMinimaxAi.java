@@ -0,0 +1,264 @@
+package tictactoe.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * Minimax with alphabeta pruning that splits the root moves across a ForkJoinPool. Optionally the
+ * replies to each root move are split as well (Young Brothers Wait: the first reply is searched
+ * alone to establish a bound, then the remaining replies run in parallel).
+ *
+ * Every task searches its own copy of the board, and every pool thread keeps its own MinimaxAi,
+ * since it is not thread-safe; they all share one {@link SharedTranspositionTable}, so a position
+ * reached under two root moves is searched once. The best root score found so far is shared
+ * through an atomic, so a root move started later is searched with the tighter bound. Ties are
+ * broken towards the lowest cell index, so the result matches the sequential {@link MinimaxAi}.
+ */
+public class ParallelMinimaxAi {
+  private static final int INFINITY = 1 << 30; // window bound that can be negated safely
+  private final ForkJoinPool pool;
+  private final boolean isSplittingReplies; // Whether to also split the second ply
+  private final SharedTranspositionTable table; // shared by the workers, aged once per search
+  private final ThreadLocal<MinimaxAi> workers; // the search of each pool thread
+
+  /**
+   * Initialize a parallel search that only splits the root moves
+   *
+   * @param pool The pool to run the search on
+   */
+  public ParallelMinimaxAi(ForkJoinPool pool) {
+    this(pool, false);
+  }
+
+  /**
+   * Initialize a parallel search
+   *
+   * @param pool The pool to run the search on
+   * @param isSplittingReplies True to also split the replies to each root move (Young Brothers
+   *        Wait)
+   */
+  public ParallelMinimaxAi(ForkJoinPool pool, boolean isSplittingReplies) {
+    this(pool, isSplittingReplies, new SharedTranspositionTable(MinimaxAi.DEFAULT_TABLE_BITS + 2));
+  }
+
+  /**
+   * Initialize a parallel search on a given table
+   *
+   * @param pool The pool to run the search on
+   * @param isSplittingReplies True to also split the replies to each root move
+   * @param table The table shared by the pool threads, and kept from one search to the next
+   */
+  public ParallelMinimaxAi(ForkJoinPool pool, boolean isSplittingReplies,
+      SharedTranspositionTable table) {
+    this.pool = pool;
+    this.isSplittingReplies = isSplittingReplies;
+    this.table = table;
+    this.workers = ThreadLocal.withInitial(() -> new MinimaxAi(table));
+  }
+
+  /**
+   * Computes the next best move by parallel minimax
+   *
+   * @param g The current Game instance, left untouched
+   * @return The next best move as int[2] array with [x,y]
+   * @throws IllegalArgumentException when the run with a finished game
+   */
+  public int[] findBestMove(Game g) {
+    if (g.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    table.newSearch();
+    BitBoard root = new BitBoard(g.getBoard().getBitBoard());
+    boolean isMaximizingPlayerTurn = g.isMaximizingPlayerTurn();
+    boolean[] isInvariant = MinimaxAi.invariantSymmetries(root);
+    AtomicLong best = new AtomicLong(pack(-INFINITY, Integer.MAX_VALUE));
+
+    List<RootMoveTask> tasks = new ArrayList<>();
+    for (int cell = 0; cell < root.getCellCount(); cell++) {
+      if (root.isEmpty(cell) && !MinimaxAi.isSymmetricDuplicate(root, cell, isInvariant)) {
+        tasks.add(new RootMoveTask(root, cell, isMaximizingPlayerTurn, best));
+      }
+    }
+    pool.invoke(new RecursiveAction() {
+      @Override
+      protected void compute() {
+        invokeAll(tasks);
+      }
+    });
+
+    int bestCell = unpackCell(best.get());
+    int columns = root.getColumnCount();
+    return new int[] {bestCell / columns, bestCell % columns};
+  }
+
+  /**
+   * Searches a single root move and publishes its score if it beats the shared best
+   */
+  private class RootMoveTask extends RecursiveAction {
+    private final BitBoard root;
+    private final int cell;
+    private final boolean isMaximizingPlayer;
+    private final AtomicLong best; // packed (score for the player to move, cell) of the best move
+
+    RootMoveTask(BitBoard root, int cell, boolean isMaximizingPlayer, AtomicLong best) {
+      this.root = root;
+      this.cell = cell;
+      this.isMaximizingPlayer = isMaximizingPlayer;
+      this.best = best;
+    }
+
+    @Override
+    protected void compute() {
+      // A move after the current best has to beat it, a move before it only has to equal it
+      long current = best.get();
+      int lower = unpackCell(current) > cell ? unpackScore(current) - 1 : unpackScore(current);
+      int alpha = isMaximizingPlayer ? lower : -INFINITY;
+      int beta = isMaximizingPlayer ? INFINITY : -lower;
+
+      BitBoard b = new BitBoard(root);
+      workers.get().resetEvaluator(b);
+      int value = isSplittingReplies ? searchSplit(b, alpha, beta)
+          : workers.get().scoreMove(b, cell, isMaximizingPlayer, b.getEmptyCellCount(), alpha,
+              beta);
+      int score = isMaximizingPlayer ? value : -value;
+      if (score <= lower) {
+        // only a bound, a move at least as good is already known
+        return;
+      }
+      while (true) {
+        long previous = best.get();
+        int previousScore = unpackScore(previous);
+        boolean isBetter = score > previousScore
+            || (score == previousScore && cell < unpackCell(previous));
+        if (!isBetter || best.compareAndSet(previous, pack(score, cell))) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Play the root move, then search the first reply alone and the younger ones in parallel
+     */
+    private int searchSplit(BitBoard b, int alpha, int beta) {
+      b.play(cell, isMaximizingPlayer);
+      if (b.isWinningCell(cell, isMaximizingPlayer)) {
+        return MinimaxAi.winScore(b, isMaximizingPlayer);
+      }
+      if (b.getEmptyCellCount() == 0) {
+        return 0; // draw
+      }
+      workers.get().resetEvaluator(b);
+      boolean isMaximizingReply = !isMaximizingPlayer;
+      int first = 0;
+      while (!b.isEmpty(first)) {
+        first++;
+      }
+      int score = workers.get().scoreMove(b, first, isMaximizingReply, b.getEmptyCellCount(),
+          alpha, beta);
+      if (isMaximizingReply) {
+        alpha = Math.max(alpha, score);
+      } else {
+        beta = Math.min(beta, score);
+      }
+      if (beta <= alpha) {
+        return isMaximizingReply ? alpha : beta;
+      }
+
+      List<ReplyTask> younger = new ArrayList<>();
+      for (int reply = first + 1; reply < b.getCellCount(); reply++) {
+        if (b.isEmpty(reply)) {
+          younger.add(new ReplyTask(new BitBoard(b), reply, isMaximizingReply, alpha, beta));
+        }
+      }
+      invokeAll(younger);
+      for (ReplyTask task : younger) {
+        if (isMaximizingReply) {
+          alpha = Math.max(alpha, task.join());
+        } else {
+          beta = Math.min(beta, task.join());
+        }
+      }
+      return isMaximizingReply ? alpha : beta;
+    }
+  }
+
+  /**
+   * Searches a single reply to a root move within a fixed window
+   */
+  private class ReplyTask extends RecursiveTask<Integer> {
+    private final BitBoard b;
+    private final int cell;
+    private final boolean isMaximizingPlayer;
+    private final int alpha;
+    private final int beta;
+
+    ReplyTask(BitBoard b, int cell, boolean isMaximizingPlayer, int alpha, int beta) {
+      this.b = b;
+      this.cell = cell;
+      this.isMaximizingPlayer = isMaximizingPlayer;
+      this.alpha = alpha;
+      this.beta = beta;
+    }
+
+    @Override
+    protected Integer compute() {
+      workers.get().resetEvaluator(b);
+      return workers.get().scoreMove(b, cell, isMaximizingPlayer, b.getEmptyCellCount(), alpha,
+          beta);
+    }
+  }
+
+  private static long pack(int score, int cell) {
+    return ((long) score << 32) | (cell & 0xFFFFFFFFL);
+  }
+
+  private static int unpackScore(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  private static int unpackCell(long packed) {
+    return (int) packed;
+  }
+
+  /**
+   * Report the speedup of the parallel search over the sequential one for 1..N threads
+   *
+   * @param args [board size (default 4), max threads (default available processors), "ybw"]
+   */
+  public static void main(String[] args) {
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    int maxThreads =
+        args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    boolean isSplittingReplies = args.length > 2 && args[2].equals("ybw");
+    Game g = new Game(new Board(N));
+
+    // warm up the JIT so the first timed run is not penalized
+    new MinimaxAi().findBestMove(g);
+    long start = System.nanoTime();
+    int[] expected = new MinimaxAi().findBestMove(g);
+    long sequentialNanos = System.nanoTime() - start;
+    System.out.printf("sequential: %d ms, move [%d,%d]%n", sequentialNanos / 1_000_000,
+        expected[0], expected[1]);
+
+    for (int threads = 1; threads <= maxThreads; threads++) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        start = System.nanoTime();
+        int[] move = new ParallelMinimaxAi(pool, isSplittingReplies).findBestMove(g);
+        long nanos = System.nanoTime() - start;
+        System.out.printf("threads=%d: %d ms, speedup %.2fx, move [%d,%d]%s%n", threads,
+            nanos / 1_000_000, (double) sequentialNanos / nanos, move[0], move[1],
+            move[0] == expected[0] && move[1] == expected[1] ? "" : " MISMATCH");
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+}
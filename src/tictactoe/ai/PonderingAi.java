@@ -0,0 +1,249 @@
+package tictactoe.ai;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Game;
+
+/**
+ * Minimax that keeps thinking on the opponent's time. After each move it predicts the opponent's
+ * reply with a shallow search, and searches the position after that reply on a pondering thread
+ * until the next move is asked for.
+ *
+ * When the opponent played the predicted reply (a ponder hit), the pondering search is the move
+ * search: the time it already spent counts against the time budget of the move, so an opponent who
+ * thought at least that long gets the answer at once, from a deeper search. Otherwise (a miss, or
+ * a budget without a time limit) pondering stops and the move is searched normally. Either way the
+ * work is not lost: the pondering search and the move search share one
+ * {@link SharedTranspositionTable}.
+ *
+ * Like the other engines an instance is not thread-safe: call it from one thread at a time. The
+ * pondering thread is a daemon; {@link #stopPondering()} stops it between games.
+ */
+public class PonderingAi implements Engine {
+  public static final long DEFAULT_PONDER_MILLIS = 60_000;
+  private static final int PREDICTION_DEPTH = 4; // depth of the search for the opponent's reply
+  private final SharedTranspositionTable table; // shared by both searches, aged once per move
+  private final MinimaxAi ai; // searches the moves
+  private final MinimaxAi ponderAi; // searches on the opponent's time, on the pondering thread
+  private final ExecutorService ponderThread;
+  private final long ponderMillis; // longest a pondering search goes on
+  private Ponder ponder; // the pondering in progress, or null
+  private long ponderHits; // moves answered from a pondering search
+  private long ponderMisses; // moves searched again because the opponent played another reply
+
+  /**
+   * Initialize an AI with a table of 2^(DEFAULT_TABLE_BITS + 2) slots that ponders for up to
+   * DEFAULT_PONDER_MILLIS per move
+   */
+  public PonderingAi() {
+    this(new SharedTranspositionTable(MinimaxAi.DEFAULT_TABLE_BITS + 2), DEFAULT_PONDER_MILLIS);
+  }
+
+  /**
+   * Initialize an AI
+   *
+   * @param table The table shared by the move and pondering searches
+   * @param ponderMillis The longest time a pondering search goes on, so that an opponent who
+   *        walks away does not keep a processor busy
+   */
+  public PonderingAi(SharedTranspositionTable table, long ponderMillis) {
+    this.table = table;
+    this.ai = new MinimaxAi(table);
+    this.ponderAi = new MinimaxAi(table);
+    this.ponderMillis = ponderMillis;
+    this.ponderThread = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "tictactoe-ponder");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @Override
+  public SearchResult search(Game g, SearchBudget budget) {
+    if (g.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    return search(g.getBoard().getBitBoard(), g.isMaximizingPlayerTurn(), budget);
+  }
+
+  /**
+   * Computes the next best move of a position within a budget, then starts pondering on the
+   * position after the move and the predicted reply
+   *
+   * @param position The position, left untouched
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @param budget The limits of the search; on a ponder hit only the time limit applies
+   * @return The best move found
+   * @throws IllegalArgumentException when the position is won or full
+   */
+  public SearchResult search(BitBoard position, boolean isMaximizingPlayerTurn,
+      SearchBudget budget) {
+    // the pondering search and the move search are one logical search of this move
+    table.newSearch();
+    SearchResult result = null;
+    if (ponder != null) {
+      BitBoard predicted = ponder.predicted;
+      long hash = position.getHash(isMaximizingPlayerTurn);
+      boolean isHit = predicted != null && predicted.isSameShape(position)
+          && ponder.isOpponentMaximizing != isMaximizingPlayerTurn
+          && predicted.getHash(isMaximizingPlayerTurn) == hash;
+      if (isHit && budget.getTimeMillis() != Long.MAX_VALUE) {
+        ponderHits++;
+        long ponderedMillis = (System.nanoTime() - ponder.startNanos) / 1_000_000;
+        result = ponder.finish(Math.max(0, budget.getTimeMillis() - ponderedMillis));
+      } else {
+        ponderMisses += isHit ? 0 : 1;
+        stopPondering();
+      }
+      ponder = null;
+    }
+    if (result == null) {
+      result = ai.search(position, isMaximizingPlayerTurn, budget);
+    }
+    startPondering(position, isMaximizingPlayerTurn, result);
+    return result;
+  }
+
+  /**
+   * Stop the pondering in progress, e.g. at the end of a game, and wait until it stopped
+   */
+  public void stopPondering() {
+    if (ponder != null) {
+      ponder.finish(0);
+      ponder = null;
+    }
+  }
+
+  /**
+   * Report the progress of the move searches, see {@link MinimaxAi#setProgressListener}. The
+   * pondering searches are not reported.
+   *
+   * @param listener Receives the best move of each iteration so far, or null for none
+   */
+  public void setProgressListener(Consumer<SearchResult> listener) {
+    ai.setProgressListener(listener);
+  }
+
+  public long getPonderHits() {
+    return ponderHits;
+  }
+
+  public long getPonderMisses() {
+    return ponderMisses;
+  }
+
+  /**
+   * Get the position the AI ponders on
+   *
+   * @return The position after its last move and the predicted reply, or null while unknown
+   */
+  BitBoard getPredictedPosition() {
+    return ponder != null ? ponder.predicted : null;
+  }
+
+  /**
+   * Ponder on the position after a move and the opponent's predicted reply, unless the move or
+   * the reply ends the game
+   */
+  private void startPondering(BitBoard position, boolean isMaximizingPlayerTurn,
+      SearchResult move) {
+    BitBoard next = new BitBoard(position);
+    int cell = next.cellIndex(move.getX(), move.getY());
+    next.play(cell, isMaximizingPlayerTurn);
+    if (next.isWinningCell(cell, isMaximizingPlayerTurn) || next.getEmptyCellCount() <= 1) {
+      return;
+    }
+    ponder = new Ponder(next, !isMaximizingPlayerTurn);
+    ponder.future = ponderThread.submit(ponder::run);
+  }
+
+  /**
+   * One pondering: the search of the opponent's reply, then of the position after it
+   */
+  private class Ponder {
+    private final BitBoard afterMove; // the position the opponent moves in
+    private final boolean isOpponentMaximizing;
+    private volatile BitBoard predicted; // the position after the predicted reply, once known
+    private long startNanos; // start of the search of the predicted position, read after predicted
+    private volatile boolean isStopRequested;
+    private volatile Thread searchThread; // the pondering thread while it searches
+    private Future<SearchResult> future;
+
+    Ponder(BitBoard afterMove, boolean isOpponentMaximizing) {
+      this.afterMove = afterMove;
+      this.isOpponentMaximizing = isOpponentMaximizing;
+    }
+
+    SearchResult run() {
+      searchThread = Thread.currentThread();
+      try {
+        if (isStopRequested) {
+          return null;
+        }
+        SearchBudget prediction = SearchBudget.ofDepth(PREDICTION_DEPTH);
+        SearchResult reply = ponderAi.search(afterMove, isOpponentMaximizing, prediction);
+        BitBoard next = new BitBoard(afterMove);
+        int cell = next.cellIndex(reply.getX(), reply.getY());
+        next.play(cell, isOpponentMaximizing);
+        if (isStopRequested || next.isWinningCell(cell, isOpponentMaximizing)) {
+          return null;
+        }
+        startNanos = System.nanoTime();
+        predicted = next;
+        return ponderAi.search(next, !isOpponentMaximizing, SearchBudget.ofMillis(ponderMillis));
+      } finally {
+        searchThread = null;
+      }
+    }
+
+    /**
+     * Let the pondering go on for a while, then stop it and wait for it
+     *
+     * @param millis The time the pondering may still take
+     * @return The result of the pondering search of the predicted position, or null if it did
+     *         not get that far
+     */
+    SearchResult finish(long millis) {
+      boolean isInterrupted = false;
+      if (millis > 0) {
+        try {
+          return future.get(millis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          // out of time, take the best move so far below
+        } catch (InterruptedException e) {
+          // asked to move now, same as out of time
+          isInterrupted = true;
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Pondering failed", e.getCause());
+        }
+      }
+      isStopRequested = true;
+      Thread t = searchThread;
+      if (t != null) {
+        t.interrupt();
+      }
+      try {
+        while (true) {
+          try {
+            return future.get();
+          } catch (InterruptedException e) {
+            // the pondering stops within a few hundred nodes, wait for it anyway
+            isInterrupted = true;
+          } catch (ExecutionException e) {
+            throw new IllegalStateException("Pondering failed", e.getCause());
+          }
+        }
+      } finally {
+        if (isInterrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,803 @@
+package tictactoe.ai;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * Proves the game-theoretic value of a position (win, draw or loss with perfect play) by
+ * depth-first proof-number search (df-pn). Unlike {@link MinimaxAi} it scores nothing: every node
+ * carries a proof number and a disproof number, the least number of unsolved leaves that must be
+ * proved or disproved to settle it, and the search always expands the most proving node below the
+ * root. A position is solved with two searches, one proving that the player to move wins and, if
+ * that fails, one proving that the opponent wins; when both fail the position is a draw.
+ *
+ * Nodes live in a table of fixed size, set from a memory limit: 4-slot buckets keyed by the
+ * canonical hash, so the 8 symmetric forms of a position share one entry, and moves to symmetric
+ * children are searched once. A full bucket gives up the entry with the smallest subtree, and a
+ * lost entry is simply searched again, so the memory limit slows the proof down but never changes
+ * its result. Child thresholds use the 1 + epsilon trick to keep the search below the same child
+ * longer, which matters once the table is full.
+ *
+ * Long runs can report progress and memory use, and write the table and the state of the search
+ * to a checkpoint file now and then; {@link #resume} continues from that file. An interrupt of the
+ * solving thread stops the search with an unsolved result, after a last checkpoint.
+ *
+ * Checkpoint layout, big-endian: a header (magic, version, rows, columns, win length, the search in
+ * progress, log2 of the slot count, used slots, the hash of the root position, nodes and time
+ * spent), then every slot: canonical hash (8 bytes), proof and disproof numbers and subtree size
+ * (4 bytes each, a size of 0 marks an empty slot).
+ */
+public class ProofNumberSolver {
+  public static final int NO_MOVE = -1;
+  static final int MAGIC = 0x5454504E; // "TTPN"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 64;
+  static final int SLOT_BYTES = 20;
+  static final int INFINITY = 1 << 30; // proof number of a disproved node
+  private static final int BUCKET = 4; // slots a key may occupy
+  private static final int MIN_SLOT_BITS = 2; // a single bucket
+  private static final int MAX_SLOT_BITS = 30;
+  private static final int CHECK_INTERVAL = 1 << 14; // nodes between clock and interrupt checks
+  private static final int IO_SLOTS = 1 << 16; // slots per buffer when writing or reading a file
+  private final long[] keys; // canonical hash of the position in each slot
+  private final int[] proofs; // proof number of each slot
+  private final int[] disproofs; // disproof number of each slot
+  private final int[] works; // nodes searched below each slot, saturated, 0 for an empty slot
+  private final int mask; // slot count - 1
+  private int size; // number of used slots
+
+  // the position being solved, saved in checkpoints
+  private int rows;
+  private int columns;
+  private int winLength;
+  private long rootHash; // hash of the root with the side to move
+  private int goal; // 0 while proving a win of the side to move, 1 while proving its loss
+  private long nodes; // nodes expanded by the proof so far, across resumes
+  private long elapsedNanos; // time spent on the proof by earlier runs
+  private boolean isInProgress; // whether a proof of the root was started and not finished
+  private boolean isResumed; // whether the state comes from a checkpoint
+
+  // state of the current run
+  private Game g;
+  private BitBoard b;
+  private boolean isAttackerFirstPlayer; // whether the first player is the one proving a win
+  private int[][] childCells; // [depth][i] = cell of the i-th distinct child
+  private long[][] childKeys; // [depth][i] = canonical hash of the i-th child, 0 if finished
+  private int[][] childProofs; // [depth][i] = proof number of the i-th child
+  private int[][] childDisproofs; // [depth][i] = disproof number of the i-th child
+  private int lastProof; // proof number of the node mid just returned from
+  private int lastDisproof; // disproof number of the node mid just returned from
+  private int rootProof; // latest proof number of the root
+  private int rootDisproof; // latest disproof number of the root
+  private int rootMove; // winning move of the root, once proved
+  private long runStart; // System.nanoTime() at the start of this run, minus elapsedNanos
+  private boolean isStopped;
+
+  private Consumer<Progress> progressListener;
+  private long progressPeriodNanos;
+  private long nextProgress;
+  private Path checkpointPath;
+  private long checkpointPeriodNanos;
+  private long nextCheckpoint;
+
+  /**
+   * Initialize a solver whose node table fits in a memory limit
+   *
+   * @param memoryBytes The memory of the node table; the slot count is the largest power of two
+   *        that fits
+   * @throws IllegalArgumentException when the limit does not hold a single bucket
+   */
+  public ProofNumberSolver(long memoryBytes) {
+    this(slotBitsFor(memoryBytes));
+  }
+
+  private ProofNumberSolver(int slotBits) {
+    int slots = 1 << slotBits;
+    this.keys = new long[slots];
+    this.proofs = new int[slots];
+    this.disproofs = new int[slots];
+    this.works = new int[slots];
+    this.mask = slots - 1;
+  }
+
+  private static int slotBitsFor(long memoryBytes) {
+    int slotBits = MIN_SLOT_BITS;
+    if (memoryBytes < (long) SLOT_BYTES << slotBits) {
+      throw new IllegalArgumentException(
+          "A node table needs at least " + (SLOT_BYTES << slotBits) + " bytes");
+    }
+    while (slotBits < MAX_SLOT_BITS && (long) SLOT_BYTES << (slotBits + 1) <= memoryBytes) {
+      slotBits++;
+    }
+    return slotBits;
+  }
+
+  /**
+   * Report progress while solving
+   *
+   * @param listener Called on the solving thread with a snapshot of the proof, or null for none
+   * @param periodMillis The least time between two reports
+   */
+  public void setProgressListener(Consumer<Progress> listener, long periodMillis) {
+    this.progressListener = listener;
+    this.progressPeriodNanos = periodMillis * 1_000_000;
+  }
+
+  /**
+   * Write a checkpoint while solving, and when the search is interrupted
+   *
+   * @param path The file to write, replaced each time, or null for no checkpoints
+   * @param periodMillis The least time between two checkpoints
+   */
+  public void setCheckpoint(Path path, long periodMillis) {
+    this.checkpointPath = path;
+    this.checkpointPeriodNanos = periodMillis * 1_000_000;
+  }
+
+  /**
+   * Load a checkpoint to continue its proof. The node table has the size it was written with.
+   *
+   * @param path The checkpoint file
+   * @return A solver that continues the proof when given the same position
+   * @throws IOException when the file cannot be read
+   * @throws IllegalArgumentException when the file is not a checkpoint
+   */
+  public static ProofNumberSolver resume(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      readFully(channel, header);
+      if (header.getInt(0) != MAGIC) {
+        throw new IllegalArgumentException("Not a proof checkpoint");
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IllegalArgumentException("Unsupported checkpoint version " + header.getInt(4));
+      }
+      int slotBits = header.getInt(24);
+      if (slotBits < MIN_SLOT_BITS || slotBits > MAX_SLOT_BITS
+          || channel.size() != HEADER_BYTES + ((long) SLOT_BYTES << slotBits)) {
+        throw new IllegalArgumentException("Corrupted checkpoint");
+      }
+      ProofNumberSolver solver = new ProofNumberSolver(slotBits);
+      solver.rows = header.getInt(8);
+      solver.columns = header.getInt(12);
+      solver.winLength = header.getInt(16);
+      solver.goal = header.getInt(20);
+      solver.size = header.getInt(28);
+      solver.rootHash = header.getLong(32);
+      solver.nodes = header.getLong(40);
+      solver.elapsedNanos = header.getLong(48);
+      solver.isInProgress = true;
+      solver.isResumed = true;
+      ByteBuffer slots = ByteBuffer.allocate(SLOT_BYTES * Math.min(IO_SLOTS, 1 << slotBits));
+      for (int start = 0; start <= solver.mask; start += IO_SLOTS) {
+        int count = Math.min(IO_SLOTS, solver.mask + 1 - start);
+        slots.clear().limit(count * SLOT_BYTES);
+        readFully(channel, slots);
+        slots.flip();
+        for (int slot = start; slot < start + count; slot++) {
+          solver.keys[slot] = slots.getLong();
+          solver.proofs[slot] = slots.getInt();
+          solver.disproofs[slot] = slots.getInt();
+          solver.works[slot] = slots.getInt();
+        }
+      }
+      return solver;
+    }
+  }
+
+  /**
+   * Write the node table and the state of the proof in progress
+   *
+   * @param path The file to write; it is replaced only once the new checkpoint is complete
+   * @throws IOException when the file cannot be written
+   */
+  public void writeCheckpoint(Path path) throws IOException {
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putInt(winLength)
+        .putInt(goal).putInt(Integer.numberOfTrailingZeros(mask + 1)).putInt(size)
+        .putLong(rootHash).putLong(nodes).putLong(getElapsedNanos()).flip();
+    header.limit(HEADER_BYTES);
+    ByteBuffer slots = ByteBuffer.allocate(SLOT_BYTES * Math.min(IO_SLOTS, mask + 1));
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      for (int start = 0; start <= mask; start += IO_SLOTS) {
+        slots.clear();
+        for (int slot = start; slot < Math.min(start + IO_SLOTS, mask + 1); slot++) {
+          slots.putLong(keys[slot]).putInt(proofs[slot]).putInt(disproofs[slot])
+              .putInt(works[slot]);
+        }
+        slots.flip();
+        while (slots.hasRemaining()) {
+          channel.write(slots);
+        }
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Prove the value of a position. Solving the same position again, or a position given to
+   * {@link #resume}, continues the proof that was stopped; any other position starts a new one.
+   *
+   * @param game The position, left untouched
+   * @return The value with perfect play, or an unsolved result when the search was interrupted
+   * @throws IOException when a checkpoint cannot be written
+   * @throws IllegalArgumentException when the game is finished, or does not match a resumed
+   *         checkpoint
+   */
+  public Result solve(Game game) throws IOException {
+    if (game.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    Board board = game.getBoard();
+    BitBoard position = board.getBitBoard();
+    long hash = position.getHash(game.isMaximizingPlayerTurn());
+    boolean isSamePosition = isInProgress && hash == rootHash && board.getRowCount() == rows
+        && board.getColumnCount() == columns && board.getWinLength() == winLength;
+    if (!isSamePosition) {
+      if (isResumed) {
+        throw new IllegalArgumentException("The checkpoint is of another position");
+      }
+      clear();
+      rows = board.getRowCount();
+      columns = board.getColumnCount();
+      winLength = board.getWinLength();
+      rootHash = hash;
+      goal = 0;
+      nodes = 0;
+      elapsedNanos = 0;
+      isInProgress = true;
+    }
+    isResumed = false;
+    copy(game, position);
+
+    long now = System.nanoTime();
+    runStart = now - elapsedNanos;
+    nextProgress = now + progressPeriodNanos;
+    nextCheckpoint = now + checkpointPeriodNanos;
+    isStopped = false;
+    try {
+      for (; goal < 2; goal++) {
+        isAttackerFirstPlayer = g.isMaximizingPlayerTurn() == (goal == 0);
+        rootMove = NO_MOVE;
+        mid(0, INFINITY, INFINITY);
+        if (isStopped) {
+          elapsedNanos = System.nanoTime() - runStart;
+          if (checkpointPath != null) {
+            // an interrupt would close the file channel, so it is cleared while writing
+            boolean isInterrupted = Thread.interrupted();
+            try {
+              writeCheckpoint(checkpointPath);
+            } finally {
+              if (isInterrupted) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+          return new Result(false, Game.DRAW, NO_MOVE, nodes, elapsedNanos);
+        }
+        if (rootProof == 0) {
+          break;
+        }
+        clear();
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      g = null;
+      b = null;
+    }
+    elapsedNanos = System.nanoTime() - runStart;
+    int outcome = Game.DRAW;
+    if (goal < 2) {
+      outcome = isAttackerFirstPlayer ? Game.FIRST_PLAYER_WIN : Game.SECOND_PLAYER_WIN;
+    }
+    Result result = new Result(true, outcome, goal == 0 ? rootMove : NO_MOVE, nodes, elapsedNanos);
+    isInProgress = false;
+    return result;
+  }
+
+  /**
+   * Empty the node table
+   */
+  public void clear() {
+    Arrays.fill(works, 0);
+    size = 0;
+  }
+
+  /**
+   * Get the memory of the node table
+   *
+   * @return The table size in bytes
+   */
+  public long getTableBytes() {
+    return (long) SLOT_BYTES * (mask + 1);
+  }
+
+  /**
+   * Search below a node until its proof number reaches a limit or its disproof number does
+   *
+   * @param depth The number of moves from the root
+   * @param proofLimit The proof number threshold
+   * @param disproofLimit The disproof number threshold
+   */
+  private void mid(int depth, int proofLimit, int disproofLimit) {
+    if ((++nodes & (CHECK_INTERVAL - 1)) == 0) {
+      check();
+    }
+    boolean isFirstPlayerTurn = g.isMaximizingPlayerTurn();
+    boolean isAttackerTurn = isFirstPlayerTurn == isAttackerFirstPlayer;
+    long key = b.getCanonicalHash(isFirstPlayerTurn);
+    long startNodes = nodes;
+    int n = expand(depth, isAttackerTurn);
+    int[] cells = childCells[depth];
+    int[] childProof = childProofs[depth];
+    int[] childDisproof = childDisproofs[depth];
+
+    int proof;
+    int disproof;
+    while (true) {
+      // the node's numbers, its most proving child and the runner-up on the minimized number
+      int best = 0;
+      long sum = 0;
+      int second = INFINITY;
+      int[] minimized = isAttackerTurn ? childProof : childDisproof;
+      int[] summed = isAttackerTurn ? childDisproof : childProof;
+      for (int i = 0; i < n; i++) {
+        sum += summed[i];
+        if (minimized[i] < minimized[best]) {
+          second = minimized[best];
+          best = i;
+        } else if (i != best && minimized[i] < second) {
+          second = minimized[i];
+        }
+      }
+      int min = minimized[best];
+      int total = min == 0 ? INFINITY : (int) Math.min(sum, INFINITY - 1);
+      proof = isAttackerTurn ? min : total;
+      disproof = isAttackerTurn ? total : min;
+      if (depth == 0) {
+        rootProof = proof;
+        rootDisproof = disproof;
+        if (proof == 0 && isAttackerTurn) {
+          rootMove = cells[best];
+        }
+      }
+      if (proof >= proofLimit || disproof >= disproofLimit || isStopped) {
+        break;
+      }
+
+      // 1 + epsilon: stay below the best child until it is a quarter worse than the runner-up
+      int limit = (int) Math.min(isAttackerTurn ? proofLimit : disproofLimit,
+          second + (second >> 2) + 1L);
+      int slack = (int) Math.min(INFINITY,
+          (isAttackerTurn ? disproofLimit - disproof : proofLimit - proof) + (long) summed[best]);
+      play(cells[best]);
+      if (isAttackerTurn) {
+        mid(depth + 1, limit, slack);
+      } else {
+        mid(depth + 1, slack, limit);
+      }
+      undo();
+      childProof[best] = lastProof;
+      childDisproof[best] = lastDisproof;
+    }
+    store(key, proof, disproof, nodes - startNodes + 1);
+    lastProof = proof;
+    lastDisproof = disproof;
+  }
+
+  /**
+   * List the distinct children of the current node with their numbers: from the table, 1 and 1
+   * for a new position, 0 or infinity for a finished game. A move that wins at once is the only
+   * child listed, since it settles the node.
+   *
+   * @return The number of children
+   */
+  private int expand(int depth, boolean isAttackerTurn) {
+    int[] cells = childCells[depth];
+    long[] childKey = childKeys[depth];
+    int[] childProof = childProofs[depth];
+    int[] childDisproof = childDisproofs[depth];
+    int n = 0;
+    for (int cell = 0; cell < b.getCellCount(); cell++) {
+      if (!b.isEmpty(cell)) {
+        continue;
+      }
+      play(cell);
+      long key = 0;
+      int proof = 1;
+      int disproof = 1;
+      if (g.isFinished()) {
+        boolean isAttackerWin = g.getOutcome() != Game.DRAW && isAttackerTurn;
+        proof = isAttackerWin ? 0 : INFINITY;
+        disproof = isAttackerWin ? INFINITY : 0;
+        if (g.getOutcome() != Game.DRAW) {
+          undo();
+          cells[0] = cell;
+          childKey[0] = 0;
+          childProof[0] = proof;
+          childDisproof[0] = disproof;
+          return 1;
+        }
+      } else {
+        key = b.getCanonicalHash(g.isMaximizingPlayerTurn());
+        int slot = find(key);
+        if (slot >= 0) {
+          proof = proofs[slot];
+          disproof = disproofs[slot];
+        }
+      }
+      undo();
+      if (key != 0 && isDuplicate(childKey, n, key)) {
+        continue;
+      }
+      cells[n] = cell;
+      childKey[n] = key;
+      childProof[n] = proof;
+      childDisproof[n] = disproof;
+      n++;
+    }
+    return n;
+  }
+
+  private static boolean isDuplicate(long[] keys, int n, long key) {
+    for (int i = 0; i < n; i++) {
+      if (keys[i] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void play(int cell) {
+    g.play(cell / columns, cell % columns);
+  }
+
+  private void undo() {
+    g.undoPreviousMove();
+  }
+
+  /**
+   * Find the slot of a position
+   *
+   * @return The slot, -1 if the position is not in the table
+   */
+  private int find(long key) {
+    int bucket = bucketOf(key);
+    for (int slot = bucket; slot < bucket + BUCKET; slot++) {
+      if (works[slot] != 0 && keys[slot] == key) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Store the numbers of a position in its slot, or in an empty slot of its bucket, or else in
+   * place of the entry with the smallest subtree
+   */
+  private void store(long key, int proof, int disproof, long work) {
+    int target = find(key);
+    if (target >= 0) {
+      work += works[target];
+    } else {
+      int bucket = bucketOf(key);
+      target = bucket;
+      for (int slot = bucket + 1; slot < bucket + BUCKET && works[target] != 0; slot++) {
+        if (works[slot] < works[target]) {
+          target = slot;
+        }
+      }
+      if (works[target] == 0) {
+        size++;
+      }
+    }
+    keys[target] = key;
+    proofs[target] = proof;
+    disproofs[target] = disproof;
+    works[target] = (int) Math.min(work, Integer.MAX_VALUE);
+  }
+
+  private int bucketOf(long key) {
+    return (int) (key ^ (key >>> 32)) & mask & -BUCKET;
+  }
+
+  /**
+   * Copy the position into a game of the solver's own, and size the per-depth child lists
+   */
+  private void copy(Game game, BitBoard position) {
+    g = new Game(new Board(rows, columns, winLength));
+    for (int cell = 0; cell < position.getCellCount(); cell++) {
+      if (!position.isEmpty(cell)) {
+        g.setPlayerTurn(position.read(cell) > 0);
+        play(cell);
+      }
+    }
+    g.setPlayerTurn(game.isMaximizingPlayerTurn());
+    b = g.getBoard().getBitBoard();
+    int depths = b.getEmptyCellCount();
+    int cells = b.getCellCount();
+    childCells = new int[depths][cells];
+    childKeys = new long[depths][cells];
+    childProofs = new int[depths][cells];
+    childDisproofs = new int[depths][cells];
+  }
+
+  /**
+   * Look for an interrupt, and report progress or write a checkpoint when one is due
+   */
+  private void check() {
+    if (Thread.currentThread().isInterrupted()) {
+      // solve writes the last checkpoint on the way out
+      isStopped = true;
+      return;
+    }
+    long now = System.nanoTime();
+    if (progressListener != null && now >= nextProgress) {
+      nextProgress = now + progressPeriodNanos;
+      progressListener.accept(getProgress());
+    }
+    if (checkpointPath != null && now >= nextCheckpoint) {
+      try {
+        writeCheckpoint(checkpointPath);
+      } catch (ClosedByInterruptException e) {
+        // interrupted while writing: stop, and let solve write the last checkpoint
+        isStopped = true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      nextCheckpoint = System.nanoTime() + checkpointPeriodNanos;
+    }
+  }
+
+  private long getElapsedNanos() {
+    return g != null ? System.nanoTime() - runStart : elapsedNanos;
+  }
+
+  /**
+   * Get a snapshot of the proof in progress
+   *
+   * @return The progress
+   */
+  public Progress getProgress() {
+    Runtime runtime = Runtime.getRuntime();
+    return new Progress(goal, nodes, getElapsedNanos(), rootProof, rootDisproof, size, mask + 1,
+        getTableBytes(), runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  /**
+   * Value of a solved position
+   */
+  public static final class Result {
+    private final boolean isSolved;
+    private final int outcome; // Game.FIRST_PLAYER_WIN, DRAW or SECOND_PLAYER_WIN
+    private final int move; // a winning move of the player to move, or NO_MOVE
+    private final long nodes;
+    private final long nanos;
+
+    Result(boolean isSolved, int outcome, int move, long nodes, long nanos) {
+      this.isSolved = isSolved;
+      this.outcome = outcome;
+      this.move = move;
+      this.nodes = nodes;
+      this.nanos = nanos;
+    }
+
+    /**
+     * Check whether the proof finished
+     *
+     * @return False if the search was interrupted before the value was proved
+     */
+    public boolean isSolved() {
+      return isSolved;
+    }
+
+    /**
+     * Get the value of the position with perfect play
+     *
+     * @return FIRST_PLAYER_WIN, SECOND_PLAYER_WIN or DRAW, from {@link Game}
+     */
+    public int getOutcome() {
+      return outcome;
+    }
+
+    /**
+     * Get a move that wins for the player to move
+     *
+     * @return The cell index (x * columns + y), NO_MOVE unless the player to move wins
+     */
+    public int getMove() {
+      return move;
+    }
+
+    public long getNodes() {
+      return nodes;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      String value = !isSolved ? "unsolved"
+          : outcome == Game.FIRST_PLAYER_WIN ? "first player wins"
+              : outcome == Game.SECOND_PLAYER_WIN ? "second player wins" : "draw";
+      return String.format(Locale.ROOT, "%s%s, %,d nodes in %.1f s", value,
+          move == NO_MOVE ? "" : " (move " + move + ")", nodes, nanos / 1e9);
+    }
+  }
+
+  /**
+   * Snapshot of a proof in progress
+   */
+  public static final class Progress {
+    private final int goal; // 0 while proving a win of the side to move, 1 while proving its loss
+    private final long nodes;
+    private final long nanos;
+    private final int proof; // proof number of the root
+    private final int disproof; // disproof number of the root
+    private final int usedSlots;
+    private final int slots;
+    private final long tableBytes;
+    private final long heapBytes; // heap in use, the table included
+
+    Progress(int goal, long nodes, long nanos, int proof, int disproof, int usedSlots, int slots,
+        long tableBytes, long heapBytes) {
+      this.goal = goal;
+      this.nodes = nodes;
+      this.nanos = nanos;
+      this.proof = proof;
+      this.disproof = disproof;
+      this.usedSlots = usedSlots;
+      this.slots = slots;
+      this.tableBytes = tableBytes;
+      this.heapBytes = heapBytes;
+    }
+
+    public long getNodes() {
+      return nodes;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public int getProofNumber() {
+      return proof;
+    }
+
+    public int getDisproofNumber() {
+      return disproof;
+    }
+
+    /**
+     * Get the share of the node table in use
+     *
+     * @return Used slots over all slots, from 0 to 1
+     */
+    public double getTableLoad() {
+      return (double) usedSlots / slots;
+    }
+
+    public long getTableBytes() {
+      return tableBytes;
+    }
+
+    public long getHeapBytes() {
+      return heapBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "%s: pn %s dn %s, %,d nodes in %.1f s (%,.0f/s), table %.1f%% of %d MB, heap %d MB",
+          goal == 0 ? "proving a win" : "proving a loss", number(proof), number(disproof), nodes,
+          nanos / 1e9, nanos == 0 ? 0 : nodes * 1e9 / nanos, 100 * getTableLoad(),
+          tableBytes >> 20, heapBytes >> 20);
+    }
+
+    private static String number(int n) {
+      return n >= INFINITY ? "inf" : Integer.toString(n);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IllegalArgumentException("Truncated checkpoint");
+      }
+    }
+  }
+
+  /**
+   * Prove the value of an empty board from the command line
+   *
+   * @param args Optionally -m rows (default 3), -n columns (default m), -k win length (default the
+   *        smaller side), -memory table megabytes (default 256), -progress seconds between reports
+   *        (default 10), -checkpoint file and -every seconds between checkpoints (default 600),
+   *        and -resume file to continue from a checkpoint
+   */
+  public static void main(String[] args) throws IOException {
+    int m = 3;
+    int n = -1;
+    int k = -1;
+    long megabytes = 256;
+    long progressSeconds = 10;
+    Path checkpoint = null;
+    long checkpointSeconds = 600;
+    Path resume = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-m":
+          m = Integer.parseInt(args[++i]);
+          break;
+        case "-n":
+          n = Integer.parseInt(args[++i]);
+          break;
+        case "-k":
+          k = Integer.parseInt(args[++i]);
+          break;
+        case "-memory":
+          megabytes = Long.parseLong(args[++i]);
+          break;
+        case "-progress":
+          progressSeconds = Long.parseLong(args[++i]);
+          break;
+        case "-checkpoint":
+          checkpoint = Paths.get(args[++i]);
+          break;
+        case "-every":
+          checkpointSeconds = Long.parseLong(args[++i]);
+          break;
+        case "-resume":
+          resume = Paths.get(args[++i]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    ProofNumberSolver solver;
+    if (resume != null) {
+      solver = resume(resume);
+      m = solver.rows;
+      n = solver.columns;
+      k = solver.winLength;
+    } else {
+      n = n < 0 ? m : n;
+      k = k < 0 ? Math.min(m, n) : k;
+      solver = new ProofNumberSolver(megabytes << 20);
+    }
+    solver.setProgressListener(System.out::println, progressSeconds * 1000);
+    if (checkpoint != null) {
+      solver.setCheckpoint(checkpoint, checkpointSeconds * 1000);
+    }
+    System.out.printf(Locale.ROOT, "%dx%d, k=%d, %,d KB node table%n", m, n, k,
+        solver.getTableBytes() >> 10);
+    Result result = solver.solve(new Game(new Board(m, n, k)));
+    System.out.println(result);
+  }
+}
@@ -0,0 +1,105 @@
+package tictactoe.ai;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+public class ProofNumberSolverTest {
+
+  @Test
+  public void provesTheValuesOfSmallBoards() throws Exception {
+    ProofNumberSolver solver = new ProofNumberSolver(1 << 20);
+    assertEquals(Game.DRAW, solver.solve(new Game(new Board(3))).getOutcome());
+    // a memory limit far below the ~1 million positions of 4x4 only costs time
+    assertEquals(Game.DRAW, solver.solve(new Game(new Board(4))).getOutcome());
+
+    Game g = new Game(new Board(4, 4, 3));
+    ProofNumberSolver.Result win = solver.solve(g);
+    assertTrue(win.isSolved());
+    assertEquals(Game.FIRST_PLAYER_WIN, win.getOutcome());
+    // the proving move keeps the win
+    g.play(win.getMove() / 4, win.getMove() % 4);
+    assertEquals(Game.FIRST_PLAYER_WIN, solver.solve(g).getOutcome());
+  }
+
+  @Test
+  public void agreesWithMinimaxOnRandomPositions() throws Exception {
+    ProofNumberSolver solver = new ProofNumberSolver(1 << 16);
+    SplittableRandom random = new SplittableRandom(7);
+    for (int i = 0; i < 200; i++) {
+      Game g = new Game(new Board(3, 4, 3));
+      for (int ply = random.nextInt(5); ply > 0 && !g.isFinished(); ply--) {
+        SearchResult move = new RandomAi(random.nextLong()).search(g, SearchBudget.unlimited());
+        g.play(move.getX(), move.getY());
+      }
+      if (g.isFinished()) {
+        continue;
+      }
+      int score = new MinimaxAi().search(g, SearchBudget.unlimited()).getScore();
+      assertEquals(Integer.signum(score), solver.solve(g).getOutcome());
+    }
+  }
+
+  @Test
+  public void resumesAnInterruptedProofFromItsCheckpoint() throws Exception {
+    Path checkpoint = Files.createTempFile("tictactoe", ".ckpt");
+    try {
+      ProofNumberSolver solver = new ProofNumberSolver(1 << 20);
+      solver.setCheckpoint(checkpoint, Long.MAX_VALUE / 2_000_000);
+      // interrupt at the first report, as soon as the search checks the clock
+      solver.setProgressListener(progress -> Thread.currentThread().interrupt(), 0);
+      ProofNumberSolver.Result stopped;
+      try {
+        stopped = solver.solve(new Game(new Board(4)));
+      } finally {
+        Thread.interrupted();
+      }
+      assertFalse(stopped.isSolved());
+
+      ProofNumberSolver resumed = ProofNumberSolver.resume(checkpoint);
+      try {
+        resumed.solve(new Game(new Board(4, 4, 3)));
+        fail("A checkpoint only resumes its own position");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      ProofNumberSolver.Result result = resumed.solve(new Game(new Board(4)));
+      assertTrue(result.isSolved());
+      assertEquals(Game.DRAW, result.getOutcome());
+      assertTrue(result.getNodes() > stopped.getNodes());
+    } finally {
+      Files.deleteIfExists(checkpoint);
+    }
+  }
+
+  @Test
+  public void interruptDuringACheckpointStopsWithALastCheckpoint() throws Exception {
+    Path checkpoint = Files.createTempFile("tictactoe", ".ckpt");
+    Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    try {
+      ProofNumberSolver solver = new ProofNumberSolver(1 << 20);
+      // the report interrupts, and the periodic checkpoint right after it is written interrupted
+      solver.setProgressListener(progress -> Thread.currentThread().interrupt(), 0);
+      solver.setCheckpoint(checkpoint, 0);
+      ProofNumberSolver.Result stopped;
+      try {
+        stopped = solver.solve(new Game(new Board(4)));
+        assertTrue(Thread.currentThread().isInterrupted());
+      } finally {
+        Thread.interrupted();
+      }
+      assertFalse(stopped.isSolved());
+      assertFalse(Files.exists(temporary));
+      assertEquals(Game.DRAW,
+          ProofNumberSolver.resume(checkpoint).solve(new Game(new Board(4))).getOutcome());
+    } finally {
+      Files.deleteIfExists(checkpoint);
+      Files.deleteIfExists(temporary);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package tictactoe.ai;
+
+import java.util.SplittableRandom;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Game;
+
+/**
+ * Plays a uniformly random empty cell, the baseline opponent of tournaments and load tests. The
+ * budget is ignored and the result reports no nodes and a score of 0.
+ */
+public class RandomAi implements Engine {
+  private final SplittableRandom random;
+
+  /**
+   * Initialize the AI
+   *
+   * @param seed The seed of the moves, so that games can be replayed
+   */
+  public RandomAi(long seed) {
+    this.random = new SplittableRandom(seed);
+  }
+
+  @Override
+  public SearchResult search(Game g, SearchBudget budget) {
+    if (g.isFinished()) {
+      throw new IllegalArgumentException("The game already finished");
+    }
+    BitBoard b = g.getBoard().getBitBoard();
+    int pick = random.nextInt(b.getEmptyCellCount());
+    int cell = 0;
+    while (!b.isEmpty(cell) || pick-- > 0) {
+      cell++;
+    }
+    int columns = b.getColumnCount();
+    return new SearchResult(cell / columns, cell % columns, 0, 1, 0, false);
+  }
+}
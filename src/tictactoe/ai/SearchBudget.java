@@ -0,0 +1,115 @@
+package tictactoe.ai;
+
+/**
+ * Limits for a single move search: wall time, number of nodes and depth. A search stops at
+ * whichever limit is reached first.
+ */
+public final class SearchBudget {
+  private static final SearchBudget UNLIMITED =
+      new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+  private final long timeMillis; // wall time allowed for the move
+  private final long maxNodes; // nodes allowed for the move
+  private final int maxDepth; // deepest iteration allowed, in plies
+
+  private SearchBudget(long timeMillis, long maxNodes, int maxDepth) {
+    if (timeMillis < 0 || maxNodes < 0 || maxDepth < 1)
+      throw new IllegalArgumentException("Search budget must be positive");
+    this.timeMillis = timeMillis;
+    this.maxNodes = maxNodes;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * A budget without limits: the search always reaches the end of the game
+   *
+   * @return The unlimited budget
+   */
+  public static SearchBudget unlimited() {
+    return UNLIMITED;
+  }
+
+  /**
+   * A budget limited by wall time
+   *
+   * @param timeMillis Milliseconds allowed for the move
+   * @return The budget
+   */
+  public static SearchBudget ofMillis(long timeMillis) {
+    return new SearchBudget(timeMillis, Long.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * A budget limited by the number of searched nodes
+   *
+   * @param maxNodes Nodes allowed for the move
+   * @return The budget
+   */
+  public static SearchBudget ofNodes(long maxNodes) {
+    return new SearchBudget(Long.MAX_VALUE, maxNodes, Integer.MAX_VALUE);
+  }
+
+  /**
+   * A budget limited by search depth
+   *
+   * @param maxDepth Plies to look ahead
+   * @return The budget
+   */
+  public static SearchBudget ofDepth(int maxDepth) {
+    return new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, maxDepth);
+  }
+
+  /**
+   * Copy of this budget with another depth limit
+   *
+   * @param maxDepth Plies to look ahead
+   * @return The budget
+   */
+  public SearchBudget withMaxDepth(int maxDepth) {
+    return new SearchBudget(timeMillis, maxNodes, maxDepth);
+  }
+
+  /**
+   * Copy of this budget with another node limit
+   *
+   * @param maxNodes Nodes allowed for the move
+   * @return The budget
+   */
+  public SearchBudget withMaxNodes(long maxNodes) {
+    return new SearchBudget(timeMillis, maxNodes, maxDepth);
+  }
+
+  /**
+   * Check whether the budget can stop a search before the end of the game
+   *
+   * @return True if the time and node budgets are unlimited
+   */
+  public boolean isUnbounded() {
+    return timeMillis == Long.MAX_VALUE && maxNodes == Long.MAX_VALUE;
+  }
+
+  public long getTimeMillis() {
+    return timeMillis;
+  }
+
+  public long getMaxNodes() {
+    return maxNodes;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Absolute deadline of a search started now
+   *
+   * @return The System.nanoTime() value at which the search must stop
+   */
+  long deadlineFromNow() {
+    if (timeMillis == Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    long now = System.nanoTime();
+    long deadline = now + timeMillis * 1_000_000L;
+    return deadline < now ? Long.MAX_VALUE : deadline;
+  }
+}
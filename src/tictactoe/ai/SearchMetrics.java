@@ -0,0 +1,220 @@
+package tictactoe.ai;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts of what {@link MinimaxAi} searches did: nodes in total and per depth, beta cutoffs and
+ * how many of them the first move caused, transposition table hits, and wall time per search.
+ *
+ * Metrics are off unless set with {@link MinimaxAi#setMetrics}; a search without them pays one
+ * null check per node. With them, an engine counts into plain fields of its own during the search
+ * and adds them here once at the end, so one instance can collect the searches of many engines on
+ * many threads. Positions answered from an opening book are not searches and are not counted.
+ *
+ * The counts can be read through the getters, published as a JMX MBean ({@link #register}), or
+ * written out periodically as text or JSON ({@link #dumpEvery}).
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+  private long searches;
+  private long nodes;
+  private long[] nodesByDepth = new long[0]; // [d] = nodes d plies below the root
+  private long cutoffs;
+  private long firstMoveCutoffs; // cutoffs caused by the first move tried
+  private long probes; // transposition table probes
+  private long hits; // probes that found the position
+  private long nanos; // wall time of all searches
+  private long maxNanos; // wall time of the slowest search
+  private long lastNanos; // wall time of the latest search
+
+  /**
+   * Counts of the search in progress of one engine, not thread-safe
+   */
+  static final class Counters {
+    long[] nodesByDepth = new long[16];
+    long cutoffs;
+    long firstMoveCutoffs;
+    long probes;
+    long hits;
+
+    void node(int depth) {
+      if (depth >= nodesByDepth.length) {
+        nodesByDepth = Arrays.copyOf(nodesByDepth, Math.max(depth + 1, 2 * nodesByDepth.length));
+      }
+      nodesByDepth[depth]++;
+    }
+
+    void clear() {
+      Arrays.fill(nodesByDepth, 0);
+      cutoffs = 0;
+      firstMoveCutoffs = 0;
+      probes = 0;
+      hits = 0;
+    }
+  }
+
+  /**
+   * Add the counts of a finished search
+   *
+   * @param counters The counts of the search, left untouched
+   * @param searchNodes The nodes of the search
+   * @param searchNanos The wall time of the search
+   */
+  synchronized void record(Counters counters, long searchNodes, long searchNanos) {
+    searches++;
+    nodes += searchNodes;
+    if (counters.nodesByDepth.length > nodesByDepth.length) {
+      nodesByDepth = Arrays.copyOf(nodesByDepth, counters.nodesByDepth.length);
+    }
+    for (int d = 0; d < counters.nodesByDepth.length; d++) {
+      nodesByDepth[d] += counters.nodesByDepth[d];
+    }
+    cutoffs += counters.cutoffs;
+    firstMoveCutoffs += counters.firstMoveCutoffs;
+    probes += counters.probes;
+    hits += counters.hits;
+    nanos += searchNanos;
+    maxNanos = Math.max(maxNanos, searchNanos);
+    lastNanos = searchNanos;
+  }
+
+  @Override
+  public synchronized long getSearches() {
+    return searches;
+  }
+
+  @Override
+  public synchronized long getNodes() {
+    return nodes;
+  }
+
+  @Override
+  public synchronized long[] getNodesByDepth() {
+    int length = nodesByDepth.length;
+    while (length > 1 && nodesByDepth[length - 1] == 0) {
+      length--;
+    }
+    return Arrays.copyOf(nodesByDepth, length);
+  }
+
+  @Override
+  public synchronized double getNodesPerSecond() {
+    return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+  }
+
+  @Override
+  public synchronized long getCutoffs() {
+    return cutoffs;
+  }
+
+  @Override
+  public synchronized double getFirstMoveCutoffRate() {
+    return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+  }
+
+  @Override
+  public synchronized long getTableProbes() {
+    return probes;
+  }
+
+  @Override
+  public synchronized double getTableHitRate() {
+    return probes == 0 ? 0 : (double) hits / probes;
+  }
+
+  @Override
+  public synchronized double getAverageSearchMillis() {
+    return searches == 0 ? 0 : nanos / 1e6 / searches;
+  }
+
+  @Override
+  public synchronized double getMaxSearchMillis() {
+    return maxNanos / 1e6;
+  }
+
+  @Override
+  public synchronized double getLastSearchMillis() {
+    return lastNanos / 1e6;
+  }
+
+  @Override
+  public synchronized void reset() {
+    searches = 0;
+    nodes = 0;
+    nodesByDepth = new long[0];
+    cutoffs = 0;
+    firstMoveCutoffs = 0;
+    probes = 0;
+    hits = 0;
+    nanos = 0;
+    maxNanos = 0;
+    lastNanos = 0;
+  }
+
+  /**
+   * Publish the metrics on the platform MBean server, under
+   * tictactoe.ai:type=SearchMetrics,name=&lt;name&gt;
+   *
+   * @param name The name that tells these metrics apart from others
+   * @return The name the MBean was registered under, to unregister it
+   * @throws IllegalArgumentException when the name is taken or invalid
+   */
+  public ObjectName register(String name) {
+    try {
+      ObjectName objectName =
+          new ObjectName("tictactoe.ai:type=SearchMetrics,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalArgumentException("Cannot register the metrics as " + name, e);
+    }
+  }
+
+  /**
+   * Write out the metrics at a fixed rate until the returned future is cancelled
+   *
+   * @param executor The executor to run the dumps on
+   * @param period The time between two dumps
+   * @param unit The unit of the period
+   * @param isJson True for one JSON object per dump, false for text
+   * @param out Receives each dump, e.g. System.out::println
+   * @return The future of the dumps, cancel it to stop them
+   */
+  public ScheduledFuture<?> dumpEvery(ScheduledExecutorService executor, long period,
+      TimeUnit unit, boolean isJson, Consumer<String> out) {
+    return executor.scheduleAtFixedRate(() -> out.accept(isJson ? toJson() : toString()), period,
+        period, unit);
+  }
+
+  /**
+   * Format the metrics as a JSON object
+   *
+   * @return The JSON text, on one line
+   */
+  public synchronized String toJson() {
+    return String.format(Locale.ROOT, "{\"searches\":%d,\"nodes\":%d,\"nodesPerSecond\":%.0f,"
+        + "\"nodesByDepth\":%s,\"cutoffs\":%d,\"firstMoveCutoffRate\":%.4f,"
+        + "\"tableProbes\":%d,\"tableHitRate\":%.4f,\"averageSearchMillis\":%.3f,"
+        + "\"maxSearchMillis\":%.3f,\"lastSearchMillis\":%.3f}", searches, nodes,
+        getNodesPerSecond(), Arrays.toString(getNodesByDepth()).replace(" ", ""), cutoffs,
+        getFirstMoveCutoffRate(), probes, getTableHitRate(), getAverageSearchMillis(),
+        getMaxSearchMillis(), getLastSearchMillis());
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(Locale.ROOT, "%d searches, %d nodes (%.0f nodes/s), %d cutoffs (%.1f%% "
+        + "on the first move), table hit rate %.1f%% of %d probes, search time %.3f ms average, "
+        + "%.3f ms max, %.3f ms last%nnodes by depth: %s", searches, nodes, getNodesPerSecond(),
+        cutoffs, 100 * getFirstMoveCutoffRate(), 100 * getTableHitRate(), probes,
+        getAverageSearchMillis(), getMaxSearchMillis(), getLastSearchMillis(),
+        Arrays.toString(getNodesByDepth()));
+  }
+}
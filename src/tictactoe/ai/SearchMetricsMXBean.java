@@ -0,0 +1,40 @@
+package tictactoe.ai;
+
+/**
+ * The JMX view of {@link SearchMetrics}. All counts cover the searches since the last reset.
+ */
+public interface SearchMetricsMXBean {
+  long getSearches();
+
+  long getNodes();
+
+  /**
+   * Get the nodes searched at each depth
+   *
+   * @return [d] = nodes d plies below the root, [0] is always 0
+   */
+  long[] getNodesByDepth();
+
+  double getNodesPerSecond();
+
+  long getCutoffs();
+
+  /**
+   * Get the share of the beta cutoffs caused by the first move tried, a measure of move ordering
+   *
+   * @return The rate between 0 and 1
+   */
+  double getFirstMoveCutoffRate();
+
+  long getTableProbes();
+
+  double getTableHitRate();
+
+  double getAverageSearchMillis();
+
+  double getMaxSearchMillis();
+
+  double getLastSearchMillis();
+
+  void reset();
+}
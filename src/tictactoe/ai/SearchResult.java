@@ -0,0 +1,66 @@
+package tictactoe.ai;
+
+/**
+ * Outcome of a move search: the move, its score and how much work was done to find it
+ */
+public final class SearchResult {
+  private final int x; // row index of the best move
+  private final int y; // column index of the best move
+  private final int score; // score of the best move, positive favours the first player
+  private final int depth; // depth of the deepest completed iteration, in plies
+  private final long nodes; // nodes searched, including aborted iterations
+  private final boolean isComplete; // True if the deepest iteration reached the end of the game
+
+  public SearchResult(int x, int y, int score, int depth, long nodes, boolean isComplete) {
+    this.x = x;
+    this.y = y;
+    this.score = score;
+    this.depth = depth;
+    this.nodes = nodes;
+    this.isComplete = isComplete;
+  }
+
+  /**
+   * Get the best move
+   *
+   * @return The move as int[2] array with [x,y]
+   */
+  public int[] getMove() {
+    return new int[] {x, y};
+  }
+
+  public int getX() {
+    return x;
+  }
+
+  public int getY() {
+    return y;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Check whether the score is the game-theoretic value rather than a depth-limited estimate
+   *
+   * @return True if the search reached the end of the game on every line
+   */
+  public boolean isComplete() {
+    return isComplete;
+  }
+
+  @Override
+  public String toString() {
+    return "[" + x + "," + y + "] score=" + score + " depth=" + depth + " nodes=" + nodes
+        + (isComplete ? " (complete)" : "");
+  }
+}
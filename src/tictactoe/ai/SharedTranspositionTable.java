@@ -0,0 +1,123 @@
+package tictactoe.ai;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Transposition table that many searches can probe and store into at once, without locks: the
+ * parallel root search, the batch search, or the AI threads of a server, so that they share their
+ * work instead of each keeping its own cache.
+ *
+ * Each slot is two longs of one array, the packed entry and the key XOR-ed with it. A store writes
+ * both and a probe checks that they still match the key, so an entry half-overwritten by a
+ * concurrent store (or torn) reads as a miss instead of as another position's data. A rare lost
+ * store only costs a re-search.
+ *
+ * Entries carry the generation they were stored in. The owner of the table, not each search,
+ * starts a new generation with {@link #newSearch()} once per logical search, e.g. per game move or
+ * per time epoch of a server, so that concurrent searches do not age each other's entries. An
+ * entry of one of the RECENT_GENERATIONS latest generations is current: a deeper current entry of
+ * another position is kept. Older entries are always replaceable, so the table does not fill up
+ * with deep results of long-gone positions. The generation is 6 bits and wraps after 64
+ * generations; a stale entry that wraps into the recent window is then kept a little longer.
+ *
+ * The hit/miss/collision counters of {@link TranspositionTable} are not kept: they would be
+ * written by every thread on every probe.
+ */
+public class SharedTranspositionTable implements TranspositionCache {
+  public static final int SLOT_BYTES = 2 * Long.BYTES;
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int GENERATION_SHIFT = 58;
+  private static final int GENERATION_MASK = 0x3F;
+  static final int RECENT_GENERATIONS = 4; // generations whose entries are current
+  private final long[] slots; // [2i] = key XOR entry, [2i + 1] = entry of slot i
+  private final int mask; // slot index mask (size - 1)
+  private volatile int generation; // generation of new entries, 0-63
+
+  /**
+   * Initialize a table with 2^sizeBits slots of SLOT_BYTES bytes
+   *
+   * @param sizeBits Base two logarithm of the number of slots
+   */
+  public SharedTranspositionTable(int sizeBits) {
+    if (sizeBits < 1 || sizeBits > 29)
+      throw new IllegalArgumentException("Table size must be between 2^1 and 2^29 slots");
+    this.slots = new long[2 << sizeBits];
+    this.mask = (1 << sizeBits) - 1;
+  }
+
+  /**
+   * Initialize the largest table that fits in a memory budget
+   *
+   * @param bytes The memory budget, at least two slots
+   * @return The table
+   */
+  public static SharedTranspositionTable withMemory(long bytes) {
+    long slotCount = bytes / SLOT_BYTES;
+    if (slotCount < 2) {
+      throw new IllegalArgumentException("A table needs at least " + 2 * SLOT_BYTES + " bytes");
+    }
+    return new SharedTranspositionTable(Math.min(29, 63 - Long.numberOfLeadingZeros(slotCount)));
+  }
+
+  @Override
+  public long probe(long key) {
+    int index = ((int) key & mask) << 1;
+    long entry = (long) SLOTS.getOpaque(slots, index + 1);
+    long check = (long) SLOTS.getOpaque(slots, index);
+    if (entry == TranspositionTable.MISS || (check ^ entry) != key) {
+      return TranspositionTable.MISS;
+    }
+    return entry;
+  }
+
+  @Override
+  public void store(long key, int depth, int score, int bound, int move) {
+    int index = ((int) key & mask) << 1;
+    long entry = (long) SLOTS.getOpaque(slots, index + 1);
+    long check = (long) SLOTS.getOpaque(slots, index);
+    int current = generation;
+    if (entry != TranspositionTable.MISS && (check ^ entry) != key
+        && ((current - generation(entry)) & GENERATION_MASK) < RECENT_GENERATIONS
+        && TranspositionTable.depth(entry) > depth) {
+      return;
+    }
+    long packed =
+        TranspositionTable.pack(depth, score, bound, move) | (long) current << GENERATION_SHIFT;
+    SLOTS.setOpaque(slots, index, key ^ packed);
+    SLOTS.setOpaque(slots, index + 1, packed);
+  }
+
+  /**
+   * Start a new generation; entries stored RECENT_GENERATIONS generations ago become replaceable.
+   * Concurrent calls may advance the generation only once, which is harmless.
+   */
+  @Override
+  public void newSearch() {
+    generation = (generation + 1) & GENERATION_MASK;
+  }
+
+  /**
+   * Remove every entry. Not atomic: call it while no search uses the table.
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(slots, 0);
+  }
+
+  @Override
+  public int getSize() {
+    return mask + 1;
+  }
+
+  /**
+   * Unpack the generation of an entry
+   *
+   * @param entry The packed entry returned by probe
+   * @return The generation of the search that stored it
+   */
+  static int generation(long entry) {
+    return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+  }
+}
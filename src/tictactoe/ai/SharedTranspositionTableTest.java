@@ -0,0 +1,107 @@
+package tictactoe.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedTranspositionTableTest {
+
+  @Test
+  public void concurrentStoresNeverMixEntries() throws Exception {
+    // few slots and many keys, so that the threads keep overwriting each other's entries
+    SharedTranspositionTable table = new SharedTranspositionTable(6);
+    int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Long>> hits = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        long seed = t;
+        hits.add(executor.submit(() -> {
+          SplittableRandom random = new SplittableRandom(seed);
+          long hitCount = 0;
+          for (int i = 0; i < 500_000; i++) {
+            long key = mix(random.nextInt(1_000));
+            if (random.nextInt(4) == 0) {
+              table.store(key, depth(key), score(key), bound(key), move(key));
+            } else {
+              long entry = table.probe(key);
+              if (entry != TranspositionTable.MISS) {
+                // an entry that passes the check must be the one stored for that key
+                Assert.assertEquals(depth(key), TranspositionTable.depth(entry));
+                Assert.assertEquals(score(key), TranspositionTable.score(entry));
+                Assert.assertEquals(bound(key), TranspositionTable.bound(entry));
+                Assert.assertEquals(move(key), TranspositionTable.move(entry));
+                hitCount++;
+              }
+            }
+            if (i % 10_000 == 0) {
+              table.newSearch();
+            }
+          }
+          return hitCount;
+        }));
+      }
+      long total = 0;
+      for (Future<Long> hit : hits) {
+        total += hit.get();
+      }
+      Assert.assertTrue(total > 0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void entriesOfEarlierSearchesAreReplaced() {
+    SharedTranspositionTable table = SharedTranspositionTable.withMemory(40);
+    Assert.assertEquals(2, table.getSize());
+    long deep = 2; // both keys fall in slot 0
+    long shallow = 4;
+    table.store(deep, 9, 5, TranspositionTable.EXACT, 3);
+    table.store(shallow, 1, 7, TranspositionTable.EXACT, 4);
+    Assert.assertEquals(9, TranspositionTable.depth(table.probe(deep)));
+    Assert.assertEquals(TranspositionTable.MISS, table.probe(shallow));
+
+    // the deep entry stays current for a few generations, then gives way
+    for (int i = 1; i < SharedTranspositionTable.RECENT_GENERATIONS; i++) {
+      table.newSearch();
+      table.store(shallow, 1, 7, TranspositionTable.EXACT, 4);
+      Assert.assertEquals(9, TranspositionTable.depth(table.probe(deep)));
+    }
+    table.newSearch();
+    table.store(shallow, 1, 7, TranspositionTable.EXACT, 4);
+    Assert.assertEquals(TranspositionTable.MISS, table.probe(deep));
+    long entry = table.probe(shallow);
+    Assert.assertEquals(7, TranspositionTable.score(entry));
+    Assert.assertEquals(4, TranspositionTable.move(entry));
+    Assert.assertEquals(SharedTranspositionTable.RECENT_GENERATIONS,
+        SharedTranspositionTable.generation(entry));
+  }
+
+  private static long mix(long x) {
+    x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+    x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+    return x ^ (x >>> 31);
+  }
+
+  private static int depth(long key) {
+    return (int) (key >>> 8) & 0xFF;
+  }
+
+  private static int score(long key) {
+    return (int) (key >>> 32);
+  }
+
+  private static int bound(long key) {
+    return 1 + (int) Long.remainderUnsigned(key, 3);
+  }
+
+  private static int move(long key) {
+    return (int) (key >>> 16) & 0x7FFF;
+  }
+}
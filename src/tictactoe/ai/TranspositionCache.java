@@ -0,0 +1,51 @@
+package tictactoe.ai;
+
+/**
+ * What a minimax search needs from its cache of searched positions. Entries are packed longs,
+ * unpacked with the static accessors of {@link TranspositionTable}.
+ *
+ * {@link TranspositionTable} is the single-threaded table with hit/miss counters;
+ * {@link SharedTranspositionTable} can be shared by concurrent searches.
+ */
+public interface TranspositionCache {
+  /**
+   * Look up a position
+   *
+   * @param key The Zobrist key of the position
+   * @return The packed entry, or {@link TranspositionTable#MISS} if the position is not stored
+   */
+  long probe(long key);
+
+  /**
+   * Store the result of a search
+   *
+   * @param key The Zobrist key of the position
+   * @param depth The remaining depth that was searched, stored as at most
+   *        {@link TranspositionTable#MAX_DEPTH}
+   * @param score The score found
+   * @param bound One of {@link TranspositionTable#EXACT}, {@link TranspositionTable#LOWER_BOUND}
+   *        or {@link TranspositionTable#UPPER_BOUND}
+   * @param move The best cell found, or {@link TranspositionTable#NO_MOVE}
+   */
+  void store(long key, int depth, int score, int bound, int move);
+
+  /**
+   * Tell the table that a new logical search starts, e.g. a new move of a game. Tables that age
+   * their entries treat the entries of older searches as replaceable. The owner of a table calls
+   * it, not the searches that use it: a search sharing the table with others cannot tell when the
+   * next move starts.
+   */
+  void newSearch();
+
+  /**
+   * Remove every entry
+   */
+  void clear();
+
+  /**
+   * Get the number of slots
+   *
+   * @return The table size
+   */
+  int getSize();
+}
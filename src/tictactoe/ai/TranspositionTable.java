@@ -0,0 +1,202 @@
+package tictactoe.ai;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table for the minimax search. Entries live in two primitive arrays
+ * (hash keys and packed data), so probing and storing never allocate.
+ *
+ * A probe returns the packed data of the entry, or {@link #MISS}. Use the static accessors
+ * ({@link #score(long)}, {@link #depth(long)}, {@link #bound(long)}, {@link #move(long)}) to
+ * unpack it.
+ *
+ * Instances are not thread-safe; {@link SharedTranspositionTable} can be shared by concurrent
+ * searches.
+ */
+public class TranspositionTable implements TranspositionCache {
+  public static final long MISS = 0;
+  public static final int EXACT = 1; // score is the exact value of the position
+  public static final int LOWER_BOUND = 2; // search failed high, value >= score
+  public static final int UPPER_BOUND = 3; // search failed low, value <= score
+  public static final int NO_MOVE = -1;
+  public static final int MAX_DEPTH = 0xFF; // deeper searches are stored as this depth
+
+  /**
+   * Decides whether a store may overwrite an occupied slot
+   */
+  public enum ReplacementPolicy {
+    /** The newest entry always wins the slot */
+    ALWAYS_REPLACE,
+    /** Keep an entry of another position if it was searched deeper than the new one */
+    DEPTH_PREFERRED
+  }
+
+  // data layout: score (bits 0-31), move + 1 (bits 32-47), depth (bits 48-55), bound (bits 56-57),
+  // bits 58-63 are left to other tables using the same packing
+  private static final int MOVE_SHIFT = 32;
+  private static final int DEPTH_SHIFT = 48;
+  private static final int BOUND_SHIFT = 56;
+
+  private final long[] keys; // Zobrist key of the position in each slot
+  private final long[] data; // packed entry of each slot, 0 when the slot is empty
+  private final int mask; // slot index mask (size - 1)
+  private final ReplacementPolicy policy;
+  private long hits; // probes that found the position
+  private long misses; // probes that found an empty slot
+  private long collisions; // probes that found another position in the slot
+  private long overwrites; // stores that evicted another position
+
+  /**
+   * Initialize a table with 2^sizeBits slots
+   *
+   * @param sizeBits Base two logarithm of the number of slots
+   * @param policy The replacement policy for occupied slots
+   */
+  public TranspositionTable(int sizeBits, ReplacementPolicy policy) {
+    if (sizeBits < 1 || sizeBits > 30)
+      throw new IllegalArgumentException("Table size must be between 2^1 and 2^30 slots");
+    this.keys = new long[1 << sizeBits];
+    this.data = new long[1 << sizeBits];
+    this.mask = (1 << sizeBits) - 1;
+    this.policy = policy;
+  }
+
+  /**
+   * Initialize a table with 2^sizeBits slots that prefers deeper entries
+   *
+   * @param sizeBits Base two logarithm of the number of slots
+   */
+  public TranspositionTable(int sizeBits) {
+    this(sizeBits, ReplacementPolicy.DEPTH_PREFERRED);
+  }
+
+  @Override
+  public long probe(long key) {
+    int index = (int) key & mask;
+    long entry = data[index];
+    if (entry == MISS) {
+      misses++;
+      return MISS;
+    }
+    if (keys[index] != key) {
+      collisions++;
+      return MISS;
+    }
+    hits++;
+    return entry;
+  }
+
+  @Override
+  public void store(long key, int depth, int score, int bound, int move) {
+    int index = (int) key & mask;
+    long entry = data[index];
+    boolean isOtherPosition = entry != MISS && keys[index] != key;
+    if (isOtherPosition && policy == ReplacementPolicy.DEPTH_PREFERRED && depth(entry) > depth) {
+      return;
+    }
+    if (isOtherPosition) {
+      overwrites++;
+    }
+    keys[index] = key;
+    data[index] = pack(depth, score, bound, move);
+  }
+
+  /**
+   * This table keeps no age, a new search changes nothing
+   */
+  @Override
+  public void newSearch() {}
+
+  /**
+   * Remove every entry and reset the counters
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(keys, 0);
+    Arrays.fill(data, 0);
+    resetCounters();
+  }
+
+  /**
+   * Reset the hit, miss, collision and overwrite counters
+   */
+  public void resetCounters() {
+    hits = 0;
+    misses = 0;
+    collisions = 0;
+    overwrites = 0;
+  }
+
+  @Override
+  public int getSize() {
+    return keys.length;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getCollisions() {
+    return collisions;
+  }
+
+  public long getOverwrites() {
+    return overwrites;
+  }
+
+  /**
+   * Pack the fields of an entry. A depth above MAX_DEPTH is stored as MAX_DEPTH, which only
+   * understates the work behind the entry; moves fit since boards have at most
+   * {@link tictactoe.models.BitBoard#MAX_CELLS} cells.
+   *
+   * @return The packed entry, never {@link #MISS} since the bound is not 0
+   */
+  static long pack(int depth, int score, int bound, int move) {
+    return (score & 0xFFFFFFFFL) | ((long) ((move + 1) & 0xFFFF) << MOVE_SHIFT)
+        | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT);
+  }
+
+  /**
+   * Unpack the score of an entry
+   *
+   * @param entry The packed entry returned by probe
+   * @return The stored score
+   */
+  public static int score(long entry) {
+    return (int) entry;
+  }
+
+  /**
+   * Unpack the best move of an entry
+   *
+   * @param entry The packed entry returned by probe
+   * @return The stored cell index, or {@link #NO_MOVE}
+   */
+  public static int move(long entry) {
+    return (int) ((entry >>> MOVE_SHIFT) & 0xFFFF) - 1;
+  }
+
+  /**
+   * Unpack the searched depth of an entry
+   *
+   * @param entry The packed entry returned by probe
+   * @return The stored depth
+   */
+  public static int depth(long entry) {
+    return (int) ((entry >>> DEPTH_SHIFT) & 0xFF);
+  }
+
+  /**
+   * Unpack the bound type of an entry
+   *
+   * @param entry The packed entry returned by probe
+   * @return One of {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+   */
+  public static int bound(long entry) {
+    return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+  }
+}
@@ -0,0 +1,20 @@
+package tictactoe.ai;
+
+import org.junit.Assert;
+import org.junit.Test;
+import tictactoe.models.BitBoard;
+
+public class TranspositionTableTest {
+
+  @Test
+  public void deepSearchesAndLastCellsFitAnEntry() {
+    TranspositionTable table = new TranspositionTable(4);
+    int lastCell = BitBoard.MAX_CELLS - 1;
+    table.store(3, 300, -5, TranspositionTable.LOWER_BOUND, lastCell);
+    long entry = table.probe(3);
+    Assert.assertEquals(TranspositionTable.MAX_DEPTH, TranspositionTable.depth(entry));
+    Assert.assertEquals(lastCell, TranspositionTable.move(entry));
+    Assert.assertEquals(-5, TranspositionTable.score(entry));
+    Assert.assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+  }
+}
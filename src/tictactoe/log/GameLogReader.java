@@ -0,0 +1,70 @@
+package tictactoe.log;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import tictactoe.models.EncodedGame;
+
+/**
+ * Scans a log written by {@link GameLogWriter}. Each segment is mapped read-only and the records
+ * are handed out through one reused {@link EncodedGame} view, so a scan allocates per segment and
+ * not per game.
+ */
+public final class GameLogReader {
+  private GameLogReader() {}
+
+  /**
+   * Visit every game of a log, oldest first. A record cut short at the end of a segment, as left
+   * by a crash between two syncs, ends the scan of that segment.
+   *
+   * @param directory The log directory
+   * @param visitor Called for each game; the view is only valid during the call
+   * @return The number of games visited
+   * @throws IOException when a segment cannot be mapped
+   * @throws IllegalArgumentException when a record header is not valid
+   */
+  public static long scan(Path directory, Consumer<EncodedGame> visitor) throws IOException {
+    EncodedGame game = new EncodedGame();
+    long count = 0;
+    for (Path path : segments(directory)) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        int end = segment.limit();
+        int offset = 0;
+        while (end - offset >= GameLogWriter.LENGTH_BYTES) {
+          int length = segment.getInt(offset);
+          offset += GameLogWriter.LENGTH_BYTES;
+          if (length <= 0 || length > end - offset) {
+            break;
+          }
+          visitor.accept(game.wrap(segment, offset));
+          offset += length;
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * List the segments of a log
+   *
+   * @param directory The log directory
+   * @return The segment files, oldest first, or an empty array if the directory does not exist
+   * @throws IOException when the directory cannot be listed
+   */
+  static Path[] segments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return new Path[0];
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(p -> p.getFileName().toString().endsWith(GameLogWriter.SEGMENT_SUFFIX))
+          .sorted().toArray(Path[]::new);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package tictactoe.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import tictactoe.models.Board;
+import tictactoe.models.EncodedGame;
+import tictactoe.models.Game;
+import tictactoe.models.GameCodec;
+
+public class GameLogTest {
+  private Path directory;
+
+  @Before
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("game-log");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(p);
+      }
+    }
+  }
+
+  @Test
+  public void scanReturnsTheAppendedGamesAcrossSegments() throws IOException {
+    SplittableRandom random = new SplittableRandom(7);
+    Game g = new Game(new Board(3));
+    List<Long> hashes = new ArrayList<>();
+    GameStats expected = new GameStats(3);
+    // small segments and a reopened writer, so the log spans several segments
+    for (int run = 0; run < 2; run++) {
+      try (GameLogWriter writer = new GameLogWriter(directory, 256, 10)) {
+        for (int i = 0; i < 100; i++) {
+          playRandomGame(g, random);
+          writer.append(g);
+          hashes.add(g.getHash());
+          expected.accept(new EncodedGame().wrap(encode(g), 0));
+        }
+      }
+    }
+    Assert.assertTrue(GameLogReader.segments(directory).length > 2);
+
+    GameStats stats = new GameStats(3);
+    Game replayed = new Game(new Board(3));
+    List<Long> replayedHashes = new ArrayList<>();
+    long count = GameLogReader.scan(directory, game -> {
+      stats.accept(game);
+      game.replay(replayed);
+      replayedHashes.add(replayed.getHash());
+    });
+    Assert.assertEquals(200, count);
+    Assert.assertEquals(hashes, replayedHashes);
+    Assert.assertEquals(expected.toString(), stats.toString());
+    Assert.assertEquals(200, stats.getFirstPlayerWins() + stats.getSecondPlayerWins()
+        + stats.getDraws());
+  }
+
+  @Test
+  public void scanStopsAtATornRecord() throws IOException {
+    Game g = new Game(new Board(3));
+    try (GameLogWriter writer = new GameLogWriter(directory)) {
+      playRandomGame(g, new SplittableRandom(1));
+      writer.append(g);
+      writer.append(g);
+    }
+    Path segment = GameLogReader.segments(directory)[0];
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+    Assert.assertEquals(1, GameLogReader.scan(directory, game -> {}));
+  }
+
+  private static ByteBuffer encode(Game g) {
+    ByteBuffer buffer = ByteBuffer.allocate(GameCodec.encodedSize(g, true));
+    GameCodec.encode(g, buffer);
+    return buffer;
+  }
+
+  private static void playRandomGame(Game g, SplittableRandom random) {
+    g.resetGame();
+    int N = g.getBoard().getBoardSize();
+    while (!g.isFinished()) {
+      int cell = random.nextInt(N * N);
+      if (g.getBoard().isCellEmpty(cell / N, cell % N)) {
+        g.play(cell / N, cell % N);
+      }
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package tictactoe.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import tictactoe.models.Game;
+import tictactoe.models.GameCodec;
+
+/**
+ * Appends games to a log made of segment files in one directory. A record is the length of the
+ * encoded game (4 bytes) followed by the game in the {@link GameCodec} format, with its move list.
+ * Records never span two segments; a new segment starts once the current one would grow past the
+ * segment size.
+ *
+ * Records are collected in a direct buffer and written through a FileChannel when it is full, and
+ * the channel is forced to disk every syncInterval records, on segment roll and on close. A crash
+ * can lose the records since the last sync and leave a partial record at the end of the last
+ * segment, which readers skip.
+ *
+ * Not thread-safe: use one writer per directory, fed by a single thread.
+ */
+public class GameLogWriter implements AutoCloseable {
+  public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+  public static final int DEFAULT_SYNC_INTERVAL = 4096;
+  static final String SEGMENT_SUFFIX = ".seg";
+  static final int LENGTH_BYTES = 4;
+  private static final int BUFFER_BYTES = 1 << 16;
+  private final Path directory; // holds the segments
+  private final long maxSegmentBytes; // size a segment may not grow past
+  private final int syncInterval; // records between two fsyncs
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES); // pending records
+  private FileChannel segment; // the segment being written
+  private long segmentIndex; // number of the segment being written
+  private long segmentBytes; // bytes written to the segment, excluding the buffer
+  private int unsynced; // records appended since the last fsync
+  private long records; // records appended by this writer
+
+  /**
+   * Open a log with the default segment size and sync interval
+   *
+   * @param directory The log directory, created if missing
+   * @throws IOException when the directory cannot be created or listed
+   */
+  public GameLogWriter(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_SYNC_INTERVAL);
+  }
+
+  /**
+   * Open a log. Appending always starts a new segment after the existing ones.
+   *
+   * @param directory The log directory, created if missing
+   * @param maxSegmentBytes The size a segment may not grow past, at most 2 GB so that it can be
+   *        mapped in one piece
+   * @param syncInterval Records between two fsyncs, 1 to sync every record
+   * @throws IOException when the directory cannot be created or listed
+   */
+  public GameLogWriter(Path directory, long maxSegmentBytes, int syncInterval)
+      throws IOException {
+    if (maxSegmentBytes <= LENGTH_BYTES || maxSegmentBytes > Integer.MAX_VALUE
+        || syncInterval < 1) {
+      throw new IllegalArgumentException("Invalid segment size " + maxSegmentBytes
+          + " or sync interval " + syncInterval);
+    }
+    this.directory = Files.createDirectories(directory);
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.syncInterval = syncInterval;
+    Path[] existing = GameLogReader.segments(directory);
+    this.segmentIndex = existing.length == 0 ? 0 : segmentIndex(existing[existing.length - 1]) + 1;
+  }
+
+  /**
+   * Append a game with its move list
+   *
+   * @param g The game, usually finished
+   * @throws IOException when the segment cannot be written
+   * @throws IllegalArgumentException when the record is larger than a segment, or the game is not
+   *         classic (see GameCodec)
+   */
+  public void append(Game g) throws IOException {
+    int size = GameCodec.encodedSize(g, true);
+    int recordBytes = LENGTH_BYTES + size;
+    if (recordBytes > maxSegmentBytes) {
+      throw new IllegalArgumentException("A record of " + recordBytes + " bytes exceeds the "
+          + "segment size");
+    }
+    if (segment == null || segmentBytes + buffer.position() + recordBytes > maxSegmentBytes) {
+      roll();
+    }
+    if (recordBytes > buffer.remaining()) {
+      writeBuffer();
+    }
+    if (recordBytes > buffer.capacity()) {
+      // larger than the batch buffer, only for very large boards
+      ByteBuffer record = ByteBuffer.allocate(recordBytes);
+      record.putInt(size);
+      GameCodec.encode(g, record);
+      record.flip();
+      while (record.hasRemaining()) {
+        segmentBytes += segment.write(record);
+      }
+    } else {
+      buffer.putInt(size);
+      GameCodec.encode(g, buffer);
+    }
+    records++;
+    if (++unsynced >= syncInterval) {
+      sync();
+    }
+  }
+
+  /**
+   * Write the pending records and force them to disk
+   *
+   * @throws IOException when the segment cannot be written
+   */
+  public void sync() throws IOException {
+    if (segment == null) {
+      return;
+    }
+    writeBuffer();
+    segment.force(false);
+    unsynced = 0;
+  }
+
+  /**
+   * Get the number of records appended by this writer
+   *
+   * @return The record count
+   */
+  public long getRecordCount() {
+    return records;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (segment != null) {
+      sync();
+      segment.close();
+      segment = null;
+    }
+  }
+
+  /**
+   * Close the current segment, if any, and start the next one
+   */
+  private void roll() throws IOException {
+    if (segment != null) {
+      close();
+      segmentIndex++;
+    }
+    segment = FileChannel.open(directory.resolve(segmentName(segmentIndex)),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    segmentBytes = 0;
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      segmentBytes += segment.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  static String segmentName(long index) {
+    return String.format("%020d%s", index, SEGMENT_SUFFIX);
+  }
+
+  static long segmentIndex(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
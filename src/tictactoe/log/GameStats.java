@@ -0,0 +1,110 @@
+package tictactoe.log;
+
+import java.util.function.Consumer;
+import tictactoe.models.EncodedGame;
+import tictactoe.models.Game;
+
+/**
+ * Outcome and opening counts over the games of one board size, fed by
+ * {@link GameLogReader#scan}. Games of other sizes are counted as skipped.
+ */
+public class GameStats implements Consumer<EncodedGame> {
+  private final int N; // board size of the counted games
+  private final long[] openings; // [cell] = games whose first move is cell
+  private long games;
+  private long firstPlayerWins;
+  private long secondPlayerWins;
+  private long draws;
+  private long unfinished;
+  private long moves; // total moves of the counted games
+  private long skipped; // games of another board size
+
+  /**
+   * Initialize the counts
+   *
+   * @param N The board size of the counted games
+   */
+  public GameStats(int N) {
+    this.N = N;
+    this.openings = new long[N * N];
+  }
+
+  @Override
+  public void accept(EncodedGame game) {
+    if (game.getBoardSize() != N) {
+      skipped++;
+      return;
+    }
+    games++;
+    moves += game.getMoveCount();
+    if (game.getMoveCount() > 0) {
+      openings[game.getMove(0)]++;
+    }
+    if (!game.isFinished()) {
+      unfinished++;
+    } else if (game.getOutcome() == Game.FIRST_PLAYER_WIN) {
+      firstPlayerWins++;
+    } else if (game.getOutcome() == Game.SECOND_PLAYER_WIN) {
+      secondPlayerWins++;
+    } else {
+      draws++;
+    }
+  }
+
+  public long getGameCount() {
+    return games;
+  }
+
+  public long getFirstPlayerWins() {
+    return firstPlayerWins;
+  }
+
+  public long getSecondPlayerWins() {
+    return secondPlayerWins;
+  }
+
+  public long getDraws() {
+    return draws;
+  }
+
+  public long getUnfinished() {
+    return unfinished;
+  }
+
+  public long getMoveCount() {
+    return moves;
+  }
+
+  public long getSkipped() {
+    return skipped;
+  }
+
+  /**
+   * Get the number of games opened on a cell
+   *
+   * @param cell The cell index, x * N + y
+   * @return The number of games whose first move is the cell
+   */
+  public long getOpeningCount(int cell) {
+    return openings[cell];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%d games (%dx%d): %d first player wins, %d second player wins, "
+        + "%d draws, %d unfinished, %.2f moves per game%n", games, N, N, firstPlayerWins,
+        secondPlayerWins, draws, unfinished, games == 0 ? 0.0 : (double) moves / games));
+    sb.append("Openings:").append(System.lineSeparator());
+    for (int x = 0; x < N; x++) {
+      for (int y = 0; y < N; y++) {
+        sb.append(String.format("%10d", openings[x * N + y]));
+      }
+      sb.append(System.lineSeparator());
+    }
+    if (skipped > 0) {
+      sb.append(skipped).append(" games of other sizes skipped").append(System.lineSeparator());
+    }
+    return sb.toString();
+  }
+}
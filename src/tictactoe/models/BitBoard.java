@@ -0,0 +1,510 @@
+package tictactoe.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Bitboard representation of an m x n board won by k marks in a row (an (m,n,k) game). The
+ * classic game is N x N with k = N. Each player owns a bit set (one bit per cell, packed into
+ * longs), and every window of k cells in a row, column or diagonal is precomputed with the count
+ * of each player's marks in it. A move only touches the windows through its cell, and a win is a
+ * window holding k marks of one player, so playing, undoing and detecting a win never allocate and
+ * never scan the board. A Zobrist hash of the position is maintained incrementally with the bits.
+ *
+ * The hash is also kept for each of the 8 board symmetries, so the canonical hash (the smallest
+ * of the 8) identifies a position up to rotation and reflection at no extra search cost. On a
+ * rectangular board the rotations by 90 degrees and the diagonal mirrors are not symmetries and
+ * act as the identity.
+ */
+public class BitBoard {
+  // the largest cell index plus one must fit the 16-bit move of a transposition table entry
+  public static final int MAX_CELLS = (1 << 16) - 1;
+  private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L; // fixed so hashes are stable
+  private final int rows; // number of rows (m)
+  private final int columns; // number of columns (n)
+  private final int winLength; // marks in a row needed to win (k)
+  private final int nCells; // number of cells (rows * columns)
+  private final int nWords; // number of longs needed to hold one bit per cell
+  private final long[] firstPlayerBits; // cells marked by the first (maximizing) player
+  private final long[] secondPlayerBits; // cells marked by the second (minimizing) player
+  private final int nLines; // number of winning windows
+  private final int[][] cellLines; // indices of the windows passing through each cell
+  private final int[] firstPlayerLineMarks; // number of first player marks on each line
+  private final int[] secondPlayerLineMarks; // number of second player marks on each line
+  private final long[] zobristKeys; // random key per (player, cell), first player keys first
+  private final long sideKey; // key mixed in when the second player is to move
+  private final int[][] symmetries; // [symmetry][cell] = image cell
+  private final int[][] inverseSymmetries; // [symmetry][image cell] = cell
+  private final long[] hashes; // Zobrist hash of the position seen through each symmetry
+  private int nZeros; // Number of empty cells
+
+  /**
+   * Initialize an empty bitboard of the specified size, won by a full row, column or diagonal
+   *
+   * @param N Size of the board (N x N)
+   */
+  public BitBoard(int N) {
+    this(N, N, N);
+  }
+
+  /**
+   * Initialize an empty m x n bitboard won by k marks in a row
+   *
+   * @param rows Number of rows (m)
+   * @param columns Number of columns (n)
+   * @param winLength Marks in a row, column or diagonal needed to win (k)
+   */
+  public BitBoard(int rows, int columns, int winLength) {
+    if (rows < 1 || columns < 1)
+      throw new IllegalArgumentException("Board size must be positive");
+    if (winLength < 1 || winLength > Math.max(rows, columns))
+      throw new IllegalArgumentException("Win length must be between 1 and the board size");
+    if ((long) rows * columns > MAX_CELLS)
+      throw new IllegalArgumentException("Boards are limited to " + MAX_CELLS + " cells");
+    this.rows = rows;
+    this.columns = columns;
+    this.winLength = winLength;
+    this.nCells = rows * columns;
+    this.nWords = (nCells + 63) >>> 6;
+    this.firstPlayerBits = new long[nWords];
+    this.secondPlayerBits = new long[nWords];
+    this.cellLines = new int[nCells][];
+    this.nLines = buildLines();
+    this.firstPlayerLineMarks = new int[nLines];
+    this.secondPlayerLineMarks = new int[nLines];
+    this.zobristKeys = new long[2 * nCells];
+    // the classic N x N boards keep their historical keys; other shapes get keys of their own, so
+    // that tables shared across games never mix positions of different games
+    long seed = isClassic() ? rows : rows | (long) columns << 20 | (long) winLength << 40;
+    SplittableRandom random = new SplittableRandom(ZOBRIST_SEED ^ seed);
+    for (int i = 0; i < zobristKeys.length; i++) {
+      zobristKeys[i] = random.nextLong();
+    }
+    this.sideKey = random.nextLong();
+    this.symmetries = Symmetry.permutations(rows, columns);
+    this.inverseSymmetries = Symmetry.inverse(symmetries);
+    this.hashes = new long[Symmetry.COUNT];
+    this.nZeros = nCells;
+  }
+
+  /**
+   * Create an independent copy of another bitboard. The precomputed masks are immutable and shared.
+   *
+   * @param other The bitboard to copy
+   */
+  public BitBoard(BitBoard other) {
+    this.rows = other.rows;
+    this.columns = other.columns;
+    this.winLength = other.winLength;
+    this.nCells = other.nCells;
+    this.nWords = other.nWords;
+    this.firstPlayerBits = other.firstPlayerBits.clone();
+    this.secondPlayerBits = other.secondPlayerBits.clone();
+    this.nLines = other.nLines;
+    this.cellLines = other.cellLines;
+    this.firstPlayerLineMarks = other.firstPlayerLineMarks.clone();
+    this.secondPlayerLineMarks = other.secondPlayerLineMarks.clone();
+    this.zobristKeys = other.zobristKeys;
+    this.sideKey = other.sideKey;
+    this.symmetries = other.symmetries;
+    this.inverseSymmetries = other.inverseSymmetries;
+    this.hashes = other.hashes.clone();
+    this.nZeros = other.nZeros;
+  }
+
+  /**
+   * Get the size of the board (N x N). On a rectangular board this is the number of columns, the
+   * stride of the cell indices.
+   *
+   * @return The size of the board (N)
+   */
+  public int getBoardSize() {
+    return columns;
+  }
+
+  /**
+   * Get the number of rows (m)
+   *
+   * @return The number of rows
+   */
+  public int getRowCount() {
+    return rows;
+  }
+
+  /**
+   * Get the number of columns (n)
+   *
+   * @return The number of columns
+   */
+  public int getColumnCount() {
+    return columns;
+  }
+
+  /**
+   * Get the number of marks in a row needed to win (k)
+   *
+   * @return The win length
+   */
+  public int getWinLength() {
+    return winLength;
+  }
+
+  /**
+   * Check whether this is the classic game: a square board won by a full row, column or diagonal.
+   * The packed formats (PackedPosition, GameCodec, OpeningBook) only hold classic boards.
+   *
+   * @return True if the board is N x N with N in a row to win
+   */
+  public boolean isClassic() {
+    return rows == columns && winLength == rows;
+  }
+
+  /**
+   * Check whether another board is of the same game
+   *
+   * @param other The other board
+   * @return True if both have the same rows, columns and win length
+   */
+  public boolean isSameShape(BitBoard other) {
+    return rows == other.rows && columns == other.columns && winLength == other.winLength;
+  }
+
+  /**
+   * Gets the total number of cells on the board
+   *
+   * @return rows * columns
+   */
+  public int getCellCount() {
+    return nCells;
+  }
+
+  /**
+   * Gets the number of empty cells on the board.
+   *
+   * @return The number of empty cells
+   */
+  public int getEmptyCellCount() {
+    return nZeros;
+  }
+
+  /**
+   * Gets the number of winning lines on the board: every window of k cells in a row, column or
+   * diagonal
+   *
+   * @return The number of lines (2N + 2 on a classic board)
+   */
+  public int getLineCount() {
+    return nLines;
+  }
+
+  /**
+   * Gets the number of cells on each winning line
+   *
+   * @return The line length (k)
+   */
+  public int getLineLength() {
+    return winLength;
+  }
+
+  /**
+   * Gets the lines passing through a cell, at most 4k of them. The returned array is shared and
+   * must not be modified.
+   *
+   * @param cell The cell index
+   * @return The indices of the lines through the cell
+   */
+  public int[] getLinesThrough(int cell) {
+    return cellLines[cell];
+  }
+
+  /**
+   * Gets the number of marks a player has on a line, kept up to date on every play and undo
+   *
+   * @param line The line index
+   * @param isMaximumValue True for the first player, False for the second player
+   * @return The number of the player's marks on the line
+   */
+  public int getLineMarks(int line, boolean isMaximumValue) {
+    return isMaximumValue ? firstPlayerLineMarks[line] : secondPlayerLineMarks[line];
+  }
+
+  /**
+   * Gets the Zobrist hash of the marked cells. Boards of the same size always use the same keys, so
+   * the hash is stable across instances and runs.
+   *
+   * @return The hash of the position
+   */
+  public long getHash() {
+    return hashes[Symmetry.IDENTITY];
+  }
+
+  /**
+   * Gets the Zobrist hash of the position together with the player to move
+   *
+   * @param isMaximizingPlayerTurn True if the first player is to move
+   * @return The hash of the position and side to move
+   */
+  public long getHash(boolean isMaximizingPlayerTurn) {
+    return withSide(hashes[Symmetry.IDENTITY], isMaximizingPlayerTurn);
+  }
+
+  /**
+   * Gets the canonical hash of the position together with the player to move. All 8 rotations and
+   * reflections of a position share the same canonical hash.
+   *
+   * @param isMaximizingPlayerTurn True if the first player is to move
+   * @return The smallest of the symmetric hashes, mixed with the side to move
+   */
+  public long getCanonicalHash(boolean isMaximizingPlayerTurn) {
+    return withSide(hashes[getCanonicalSymmetry()], isMaximizingPlayerTurn);
+  }
+
+  /**
+   * Gets the symmetry that maps this position onto its canonical form
+   *
+   * @return The index of the symmetry with the smallest hash
+   */
+  public int getCanonicalSymmetry() {
+    int best = Symmetry.IDENTITY;
+    for (int s = 1; s < Symmetry.COUNT; s++) {
+      if (hashes[s] < hashes[best]) {
+        best = s;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Map a cell of this position to the matching cell of a transformed position
+   *
+   * @param symmetry The symmetry index
+   * @param cell The cell index in this orientation
+   * @return The cell index in the transformed orientation
+   */
+  public int transformCell(int symmetry, int cell) {
+    return symmetries[symmetry][cell];
+  }
+
+  /**
+   * Map a cell of a transformed position back to this orientation
+   *
+   * @param symmetry The symmetry index
+   * @param cell The cell index in the transformed orientation
+   * @return The cell index in this orientation
+   */
+  public int inverseTransformCell(int symmetry, int cell) {
+    return inverseSymmetries[symmetry][cell];
+  }
+
+  /**
+   * Checks whether the position is unchanged by a symmetry, comparing every cell
+   *
+   * @param symmetry The symmetry index
+   * @return True if the transformed position equals this position
+   */
+  public boolean isInvariantUnder(int symmetry) {
+    int[] perm = symmetries[symmetry];
+    for (int cell = 0; cell < nCells; cell++) {
+      if (read(cell) != read(perm[cell]))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Converts a (row, column) coordinate to a cell index
+   *
+   * @param x The row index
+   * @param y The column index
+   * @return The cell index (x * columns + y)
+   */
+  public int cellIndex(int x, int y) {
+    return x * columns + y;
+  }
+
+  /**
+   * Checks if a cell is empty
+   *
+   * @param cell The cell index
+   * @return True if neither player marked the cell
+   */
+  public boolean isEmpty(int cell) {
+    long bit = 1L << cell;
+    int w = cell >>> 6;
+    return ((firstPlayerBits[w] | secondPlayerBits[w]) & bit) == 0;
+  }
+
+  /**
+   * Reads the value of a cell
+   *
+   * @param cell The cell index
+   * @return 1 if marked by the first player, -1 if marked by the second player, 0 if empty
+   */
+  public int read(int cell) {
+    long bit = 1L << cell;
+    int w = cell >>> 6;
+    if ((firstPlayerBits[w] & bit) != 0)
+      return 1;
+    if ((secondPlayerBits[w] & bit) != 0)
+      return -1;
+    return 0;
+  }
+
+  /**
+   * Marks an empty cell for a player. The caller is responsible for checking that it is empty.
+   *
+   * @param cell The cell index
+   * @param isMaximumValue True to mark for the first player, False for the second player
+   */
+  public void play(int cell, boolean isMaximumValue) {
+    long[] bits = isMaximumValue ? firstPlayerBits : secondPlayerBits;
+    bits[cell >>> 6] |= 1L << cell;
+    updateHashes(cell, isMaximumValue);
+    updateLineMarks(cell, isMaximumValue, 1);
+    nZeros -= 1;
+  }
+
+  /**
+   * Clears a marked cell. The caller is responsible for checking that it is not empty.
+   *
+   * @param cell The cell index
+   */
+  public void undo(int cell) {
+    long mask = ~(1L << cell);
+    int w = cell >>> 6;
+    boolean isMaximumValue = (firstPlayerBits[w] & ~mask) != 0;
+    updateHashes(cell, isMaximumValue);
+    updateLineMarks(cell, isMaximumValue, -1);
+    firstPlayerBits[w] &= mask;
+    secondPlayerBits[w] &= mask;
+    nZeros += 1;
+  }
+
+  /**
+   * Clears every cell of the board
+   */
+  public void clear() {
+    for (int w = 0; w < nWords; w++) {
+      firstPlayerBits[w] = 0;
+      secondPlayerBits[w] = 0;
+    }
+    nZeros = nCells;
+    for (int s = 0; s < Symmetry.COUNT; s++) {
+      hashes[s] = 0;
+    }
+    for (int line = 0; line < nLines; line++) {
+      firstPlayerLineMarks[line] = 0;
+      secondPlayerLineMarks[line] = 0;
+    }
+  }
+
+  /**
+   * Checks whether the player owns a complete line passing through the given cell. Only the
+   * windows through that cell are tested, by their mark counts, so this is the check to use right
+   * after a move.
+   *
+   * @param cell The cell index of the last move
+   * @param isMaximumValue True to test the first player, False for the second player
+   * @return True if the player completed a line through the cell
+   */
+  public boolean isWinningCell(int cell, boolean isMaximumValue) {
+    int[] marks = isMaximumValue ? firstPlayerLineMarks : secondPlayerLineMarks;
+    int[] lines = cellLines[cell];
+    for (int i = 0; i < lines.length; i++) {
+      if (marks[lines[i]] == winLength)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the player owns any complete line on the board.
+   *
+   * @param isMaximumValue True to test the first player, False for the second player
+   * @return True if the player completed any line
+   */
+  public boolean hasCompleteLine(boolean isMaximumValue) {
+    int[] marks = isMaximumValue ? firstPlayerLineMarks : secondPlayerLineMarks;
+    for (int line = 0; line < nLines; line++) {
+      if (marks[line] == winLength)
+        return true;
+    }
+    return false;
+  }
+
+  // PRIVATE:
+
+  /**
+   * Toggle a player's mark on a cell in the hash of every symmetry
+   *
+   * @param cell The cell index
+   * @param isMaximumValue True for the first player's mark
+   */
+  private void updateHashes(int cell, boolean isMaximumValue) {
+    int offset = isMaximumValue ? 0 : nCells;
+    for (int s = 0; s < Symmetry.COUNT; s++) {
+      hashes[s] ^= zobristKeys[offset + symmetries[s][cell]];
+    }
+  }
+
+  /**
+   * Adjust a player's mark count on every line through a cell
+   *
+   * @param cell The cell index
+   * @param isMaximumValue True for the first player's mark
+   * @param delta +1 when the mark is added, -1 when it is removed
+   */
+  private void updateLineMarks(int cell, boolean isMaximumValue, int delta) {
+    int[] marks = isMaximumValue ? firstPlayerLineMarks : secondPlayerLineMarks;
+    int[] lines = cellLines[cell];
+    for (int i = 0; i < lines.length; i++) {
+      marks[lines[i]] += delta;
+    }
+  }
+
+  /**
+   * Mix the side to move into a hash
+   */
+  private long withSide(long hash, boolean isMaximizingPlayerTurn) {
+    return isMaximizingPlayerTurn ? hash : hash ^ sideKey;
+  }
+
+  /**
+   * Precompute the windows passing through each cell. Windows are numbered by direction: along
+   * the rows first, then along the columns, then the diagonals and the anti-diagonals, each by
+   * starting cell. On a classic board this gives the rows (0..N-1), the columns (N..2N-1), the
+   * diagonal (2N) and the anti-diagonal (2N+1).
+   *
+   * @return The number of windows
+   */
+  private int buildLines() {
+    List<List<Integer>> lines = new ArrayList<>();
+    for (int cell = 0; cell < nCells; cell++) {
+      lines.add(new ArrayList<>());
+    }
+    int k = winLength;
+    // direction (dx, dy) and the range of the starting cells of its windows
+    int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    int line = 0;
+    for (int[] d : directions) {
+      for (int x0 = 0; x0 < rows; x0++) {
+        for (int y0 = 0; y0 < columns; y0++) {
+          int xEnd = x0 + d[0] * (k - 1);
+          int yEnd = y0 + d[1] * (k - 1);
+          if (xEnd >= rows || yEnd < 0 || yEnd >= columns) {
+            continue;
+          }
+          for (int i = 0; i < k; i++) {
+            lines.get(cellIndex(x0 + d[0] * i, y0 + d[1] * i)).add(line);
+          }
+          line++;
+        }
+      }
+    }
+    for (int cell = 0; cell < nCells; cell++) {
+      cellLines[cell] = lines.get(cell).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return line;
+  }
+}
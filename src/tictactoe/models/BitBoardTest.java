@@ -0,0 +1,90 @@
+package tictactoe.models;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class BitBoardTest {
+
+  @Test
+  public void testSymmetricPositionsShareCanonicalHash() {
+    // X in a corner, O on the adjacent edge, then every rotation and reflection of it
+    for (int s = 0; s < Symmetry.COUNT; s++) {
+      BitBoard reference = new BitBoard(3);
+      reference.play(reference.cellIndex(0, 0), true);
+      reference.play(reference.cellIndex(0, 1), false);
+
+      BitBoard transformed = new BitBoard(3);
+      transformed.play(Symmetry.transform(s, 0, 0, 3), true);
+      transformed.play(Symmetry.transform(s, 0, 1, 3), false);
+
+      assertEquals(reference.getCanonicalHash(true), transformed.getCanonicalHash(true));
+      assertNotEquals(transformed.getCanonicalHash(true), transformed.getCanonicalHash(false));
+    }
+  }
+
+  @Test
+  public void testCanonicalMoveMapsBack() {
+    BitBoard b = new BitBoard(4);
+    b.play(b.cellIndex(1, 3), true);
+    b.play(b.cellIndex(2, 0), false);
+    int symmetry = b.getCanonicalSymmetry();
+    for (int cell = 0; cell < b.getCellCount(); cell++) {
+      assertEquals(cell, b.inverseTransformCell(symmetry, b.transformCell(symmetry, cell)));
+    }
+  }
+
+  @Test
+  public void testHashIsRestoredByUndo() {
+    BitBoard b = new BitBoard(3);
+    long empty = b.getHash();
+    b.play(4, true);
+    b.play(0, false);
+    assertNotEquals(empty, b.getHash());
+    b.undo(0);
+    b.undo(4);
+    assertEquals(empty, b.getHash());
+    assertEquals(9, b.getEmptyCellCount());
+  }
+
+  @Test
+  public void testWindowsFindWinsOnEveryDiagonal() {
+    BitBoard b = new BitBoard(15, 15, 5);
+    // 15 * 11 windows along the rows and the columns, 11 * 11 along each diagonal direction
+    assertEquals(2 * 15 * 11 + 2 * 11 * 11, b.getLineCount());
+    int[][] antiDiagonal = {{3, 10}, {4, 9}, {5, 8}, {6, 7}, {7, 6}};
+    for (int i = 0; i < antiDiagonal.length; i++) {
+      int cell = b.cellIndex(antiDiagonal[i][0], antiDiagonal[i][1]);
+      b.play(cell, true);
+      assertEquals(i == antiDiagonal.length - 1, b.isWinningCell(cell, true));
+      assertFalse(b.isWinningCell(cell, false));
+    }
+    assertTrue(b.hasCompleteLine(true));
+    b.undo(b.cellIndex(5, 8));
+    assertFalse(b.hasCompleteLine(true));
+  }
+
+  @Test
+  public void testRectangularBoardWinsAndSymmetries() {
+    BitBoard b = new BitBoard(3, 5, 3);
+    assertFalse(b.isClassic());
+    b.play(b.cellIndex(2, 2), false);
+    b.play(b.cellIndex(2, 3), false);
+    assertFalse(b.isWinningCell(b.cellIndex(2, 3), false));
+    b.play(b.cellIndex(2, 4), false);
+    assertTrue(b.isWinningCell(b.cellIndex(2, 4), false));
+
+    // the mirrored position has the same canonical hash
+    BitBoard mirrored = new BitBoard(3, 5, 3);
+    mirrored.play(mirrored.cellIndex(0, 2), false);
+    mirrored.play(mirrored.cellIndex(0, 1), false);
+    mirrored.play(mirrored.cellIndex(0, 0), false);
+    assertEquals(b.getCanonicalHash(true), mirrored.getCanonicalHash(true));
+    assertNotEquals(new BitBoard(3, 5, 3).getHash(true), new BitBoard(3, 5, 4).getHash(false));
+  }
+
+  @Test
+  public void testBoardsPastMaxCellsAreRejected() {
+    // 65536 cells, one more than a transposition table entry can hold as a move
+    assertThrows(IllegalArgumentException.class, () -> new BitBoard(256, 256, 5));
+  }
+}
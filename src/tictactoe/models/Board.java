@@ -1,10 +1,14 @@
 package tictactoe.models;
 
+import java.util.Arrays;
+
 public class Board {
-  private int N; // size of the board
-  private int grid[][]; // Grid representing the board state
-  private int[] cellSelected = null; // Coordinates of the selected cell
-  private int nZeros; // Number of empty cells
+  private int N; // number of columns, the size of a square board
+  private int rows; // number of rows
+  private int winLength; // marks in a row needed to win
+  private BitBoard cells; // Bitboard representing the board state
+  private int selectedX = -1; // Row index of the selected cell, -1 when none is selected
+  private int selectedY; // Column index of the selected cell
   private int trace; // Sum of diagonal elements
   private int antiTrace; // Sum of anti-diagonal elements
   private int[] rowSums; // Array containing sum of elements in each row
@@ -16,7 +20,22 @@ public class Board {
    * @param N Size of the board (N x N)
    */
   public Board(int N) {
-    this.N = N;
+    this(N, N, N);
+  }
+
+  /**
+   * Initialize an m x n board won by k marks in a row, column or diagonal, e.g. 15 x 15 with 5 in
+   * a row for gomoku
+   *
+   * @param rows Number of rows (m)
+   * @param columns Number of columns (n)
+   * @param winLength Marks in a row needed to win (k)
+   */
+  public Board(int rows, int columns, int winLength) {
+    this.N = columns;
+    this.rows = rows;
+    this.winLength = winLength;
+    this.cells = new BitBoard(rows, columns, winLength);
     resetGrid();
   }
 
@@ -32,7 +51,7 @@ public class Board {
    */
   public void resetBoard() {
     resetGrid();
-    this.cellSelected = null;
+    clearSelection();
   }
 
   /**
@@ -41,7 +60,7 @@ public class Board {
    * @return True if any cell is selected, False otherwise
    */
   public boolean isSelectionEmpty() {
-    return this.cellSelected == null;
+    return this.selectedX < 0;
   }
 
   /**
@@ -52,20 +71,16 @@ public class Board {
    * @throws IndexOutofBoundsException If the cell index is outside the grid
    */
   public void select(int x, int y) {
-    if (x >= N || y >= N)
-      throw new IndexOutOfBoundsException("Referenced cell index outside the grid");
-    if (cellSelected == null) {
-      cellSelected = new int[2];
-    }
-    cellSelected[0] = x;
-    cellSelected[1] = y;
+    checkBounds(x, y);
+    selectedX = x;
+    selectedY = y;
   }
 
   /**
    * Deselect the selected cell
    */
   public void clearSelection() {
-    cellSelected = null;
+    selectedX = -1;
   }
 
   /**
@@ -76,7 +91,20 @@ public class Board {
    */
   public boolean isCellEmpty() {
     throwNoCellSelectedError();
-    return this.grid[cellSelected[0]][cellSelected[1]] == 0;
+    return isCellEmpty(selectedX, selectedY);
+  }
+
+  /**
+   * Checks if a cell is empty
+   * 
+   * @param x The row index of the cell
+   * @param y The column index of the cell
+   * @return True if the cell is empty, false otherwise
+   * @throws IndexOutofBoundsException If the cell index is outside the grid
+   */
+  public boolean isCellEmpty(int x, int y) {
+    checkBounds(x, y);
+    return cells.isEmpty(cells.cellIndex(x, y));
   }
 
   /**
@@ -86,17 +114,30 @@ public class Board {
    * @throws IllegalArgumentException If no cell is selected
    */
   public void writeToCell(boolean isMaximumValue) {
-    // A non-empty(zero valued) cell can only have two valid values (1 (maximum) or -1(min));
     throwNoCellSelectedError();
-    if (isCellEmpty()) {
-      nZeros -= 1;
-    }
+    writeToCell(selectedX, selectedY, isMaximumValue);
+  }
+
+  /**
+   * Write a value to a cell
+   * 
+   * @param x The row index of the cell
+   * @param y The column index of the cell
+   * @param isMaximumValue True if maximum value should be written, False for minimum value
+   * @throws IndexOutofBoundsException If the cell index is outside the grid
+   */
+  public void writeToCell(int x, int y, boolean isMaximumValue) {
+    // A non-empty(zero valued) cell can only have two valid values (1 (maximum) or -1(min));
     int newValue = isMaximumValue ? 1 : -1;
-    int previousVal = this.readFromCell();
+    int previousVal = this.readFromCell(x, y);
     boolean isDirty = previousVal != newValue;
     if (isDirty) {
-      this.grid[cellSelected[0]][cellSelected[1]] = newValue;
-      this.updateParameters();
+      int cell = cells.cellIndex(x, y);
+      if (previousVal != 0) {
+        cells.undo(cell);
+      }
+      cells.play(cell, isMaximumValue);
+      this.updateParameters(x, y, newValue - previousVal);
     }
   }
 
@@ -107,10 +148,21 @@ public class Board {
    */
   public void clearCell() {
     throwNoCellSelectedError();
-    if (!isCellEmpty()) {
-      nZeros += 1;
-      this.grid[cellSelected[0]][cellSelected[1]] = 0;
-      this.updateParameters();
+    clearCell(selectedX, selectedY);
+  }
+
+  /**
+   * Clear a cell
+   * 
+   * @param x The row index of the cell
+   * @param y The column index of the cell
+   * @throws IndexOutofBoundsException If the cell index is outside the grid
+   */
+  public void clearCell(int x, int y) {
+    int previousVal = this.readFromCell(x, y);
+    if (previousVal != 0) {
+      cells.undo(cells.cellIndex(x, y));
+      this.updateParameters(x, y, -previousVal);
     }
   }
 
@@ -122,7 +174,20 @@ public class Board {
    */
   public int readFromCell() {
     throwNoCellSelectedError();
-    return this.grid[cellSelected[0]][cellSelected[1]];
+    return readFromCell(selectedX, selectedY);
+  }
+
+  /**
+   * Reads the value of a cell.
+   * 
+   * @param x The row index of the cell
+   * @param y The column index of the cell
+   * @return The value of the cell: 1 (first player), -1 (second player) or 0 (empty)
+   * @throws IndexOutofBoundsException If the cell index is outside the grid
+   */
+  public int readFromCell(int x, int y) {
+    checkBounds(x, y);
+    return cells.read(cells.cellIndex(x, y));
   }
 
   /**
@@ -131,7 +196,7 @@ public class Board {
    * @return The number of empty cells
    */
   public int getEmptyCellCount() {
-    return nZeros;
+    return cells.getEmptyCellCount();
   }
 
   /**
@@ -191,7 +256,7 @@ public class Board {
   }
 
   /**
-   * Get the size of the board (N x N)
+   * Get the size of the board (N x N). On a rectangular board this is the number of columns.
    * 
    * @return Return the size of the board (N)
    */
@@ -199,18 +264,78 @@ public class Board {
     return N;
   }
 
+  /**
+   * Get the number of rows (m)
+   * 
+   * @return The number of rows
+   */
+  public int getRowCount() {
+    return rows;
+  }
+
+  /**
+   * Get the number of columns (n)
+   * 
+   * @return The number of columns
+   */
+  public int getColumnCount() {
+    return N;
+  }
+
+  /**
+   * Get the number of marks in a row needed to win (k)
+   * 
+   * @return The win length
+   */
+  public int getWinLength() {
+    return winLength;
+  }
+
+  /**
+   * Gets the Zobrist hash of the board, updated incrementally on every write and clear
+   *
+   * @return The hash of the cell values
+   */
+  public long getHash() {
+    return cells.getHash();
+  }
+
+  /**
+   * Get the bitboard backing this board. Search code plays on a copy of it rather than through
+   * this class.
+   *
+   * @return The bitboard holding the cell values
+   */
+  public BitBoard getBitBoard() {
+    return cells;
+  }
+
   // PRIVATE:
 
   /**
    * Reset the grid and grid-related parameters
    */
   private void resetGrid() {
-    this.grid = new int[this.N][this.N];
-    this.nZeros = N * N;
+    this.cells.clear();
     this.trace = 0;
     this.antiTrace = 0;
-    this.rowSums = new int[N];
-    this.columnSums = new int[N];
+    if (this.rowSums == null) {
+      this.rowSums = new int[rows];
+      this.columnSums = new int[N];
+    } else {
+      Arrays.fill(this.rowSums, 0);
+      Arrays.fill(this.columnSums, 0);
+    }
+  }
+
+  /**
+   * Check that a cell lies on the grid
+   *
+   * @throws IndexOutofBoundsException If the cell index is outside the grid
+   */
+  private void checkBounds(int x, int y) {
+    if (x < 0 || y < 0 || x >= rows || y >= N)
+      throw new IndexOutOfBoundsException("Referenced cell index outside the grid");
   }
 
   /**
@@ -219,38 +344,26 @@ public class Board {
    * @throws IllegalArgumentException
    */
   private void throwNoCellSelectedError() {
-    if (cellSelected == null)
+    if (isSelectionEmpty())
       throw new IllegalArgumentException("No cell selected");
   }
 
   /**
-   * Updates the board parameters (trace, antiTrace, rowSums, colSums)
-   * 
+   * Updates the board parameters (trace, antiTrace, rowSums, colSums) after a cell changed. Only
+   * the row, column and diagonals through that cell are touched.
+   *
+   * @param x The row index of the cell
+   * @param y The column index of the cell
+   * @param delta The new value of the cell minus its previous value
    */
-
-  private void updateParameters() {
-    this.trace = 0;
-    this.antiTrace = 0;
-    this.rowSums = new int[this.N];
-    this.columnSums = new int[this.N];
-    for (int x = 0; x < this.N; x++) {
-      int rowSum = 0;
-      int colSum = 0;
-      for (int y = 0; y < this.N; y++) {
-        rowSum += this.grid[x][y];
-        colSum += this.grid[y][x];
-        if (x == y) {
-          this.trace += this.grid[x][x];
-        }
-        if (x == N - (y + 1)) {
-          this.antiTrace += this.grid[x][y];
-        }
-      }
-      this.rowSums[x] = rowSum;
-      this.columnSums[x] = colSum;
+  private void updateParameters(int x, int y, int delta) {
+    this.rowSums[x] += delta;
+    this.columnSums[y] += delta;
+    if (x == y) {
+      this.trace += delta;
+    }
+    if (x == N - (y + 1)) {
+      this.antiTrace += delta;
     }
   }
-
-
-
 }
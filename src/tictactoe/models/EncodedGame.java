@@ -0,0 +1,144 @@
+package tictactoe.models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of a game encoded by {@link GameCodec}, read in place from a buffer. A single
+ * instance can be moved from one encoded game to the next with wrap, so scanning many games does
+ * not create an object per game. The buffer's position and limit are never changed.
+ */
+public final class EncodedGame {
+  private ByteBuffer buffer; // the buffer holding the encoded game
+  private int offset; // index of the first byte of the encoded game
+  private int N; // board size
+  private int moveCount; // number of moves in the move list
+  private int flags; // flags byte
+  private int cellsOffset; // index of the first byte of the position
+  private int movesOffset; // index of the first byte of the move list
+  private int width; // bits per move
+
+  /**
+   * Point the view at an encoded game
+   *
+   * @param buffer The buffer holding the game
+   * @param offset The index of the first byte of the game
+   * @return This view
+   * @throws IllegalArgumentException when the header is not valid
+   */
+  public EncodedGame wrap(ByteBuffer buffer, int offset) {
+    this.buffer = buffer;
+    this.offset = offset;
+    int index = offset;
+    int value = 0;
+    int shift = 0;
+    // two varints: the board size then the move count
+    for (int field = 0; field < 2; field++) {
+      value = 0;
+      for (shift = 0;; shift += 7) {
+        if (shift >= 32) {
+          throw new IllegalArgumentException("Invalid varint at " + index);
+        }
+        int b = buffer.get(index++);
+        value |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          break;
+        }
+      }
+      if (field == 0) {
+        N = value;
+      }
+    }
+    moveCount = value;
+    if (N < 1 || moveCount > N * N) {
+      throw new IllegalArgumentException("Invalid game header at " + offset);
+    }
+    flags = buffer.get(index++);
+    cellsOffset = index;
+    movesOffset = cellsOffset + GameCodec.positionBytes(N);
+    width = GameCodec.bitsPerMove(N);
+    return this;
+  }
+
+  public int getBoardSize() {
+    return N;
+  }
+
+  /**
+   * Get the number of moves in the move list
+   *
+   * @return The number of moves
+   */
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  /**
+   * Get a move of the move list
+   *
+   * @param index 0 for the first move
+   * @return The cell index of the move, x * N + y
+   * @throws IndexOutOfBoundsException If there is no such move
+   */
+  public int getMove(int index) {
+    if (index < 0 || index >= moveCount) {
+      throw new IndexOutOfBoundsException("No move " + index + " in the game");
+    }
+    long bitIndex = (long) index * width;
+    int start = movesOffset + (int) (bitIndex >>> 3);
+    int shift = (int) (bitIndex & 7);
+    long bits = 0;
+    for (int b = 0; 8 * b < shift + width; b++) {
+      bits |= (long) (buffer.get(start + b) & 0xff) << (8 * b);
+    }
+    return (int) ((bits >>> shift) & ((1L << width) - 1));
+  }
+
+  /**
+   * Read a cell of the final position
+   *
+   * @param cell The cell index
+   * @return 1 (first player), -1 (second player) or 0 (empty)
+   */
+  public int read(int cell) {
+    int value = (buffer.get(cellsOffset + cell / 4) >>> (2 * (cell % 4))) & 3;
+    return value == 1 ? 1 : value == 2 ? -1 : 0;
+  }
+
+  public boolean isMaximizingPlayerTurn() {
+    return (flags & GameCodec.SECOND_PLAYER_TURN) == 0;
+  }
+
+  public boolean isFinished() {
+    return (flags & GameCodec.FINISHED) != 0;
+  }
+
+  /**
+   * Get the outcome of the game
+   *
+   * @return Game.FIRST_PLAYER_WIN, Game.SECOND_PLAYER_WIN, or Game.DRAW
+   */
+  public int getOutcome() {
+    return ((flags >>> GameCodec.OUTCOME_SHIFT) & 3) - 1;
+  }
+
+  /**
+   * Get the size of the encoded game
+   *
+   * @return The number of bytes from the offset to the end of the move list
+   */
+  public int getEncodedSize() {
+    return movesOffset + (int) (((long) moveCount * width + 7) / 8) - offset;
+  }
+
+  /**
+   * Decode the full game, with its history
+   *
+   * @param g The game to overwrite, its board must have the encoded size
+   * @throws IllegalArgumentException when the data is not a valid game for this board
+   */
+  public void replay(Game g) {
+    ByteBuffer view = buffer.duplicate();
+    view.limit(offset + getEncodedSize()).position(offset);
+    GameCodec.decode(view, g);
+  }
+}
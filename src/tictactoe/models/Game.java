@@ -1,8 +1,5 @@
 package tictactoe.models;
 
-import java.util.LinkedList;
-import java.util.NoSuchElementException;
-
 public class Game {
   public static final int FINISHED = 1;
   public static final int NOT_FINISHED = 0;
@@ -15,9 +12,15 @@ public class Game {
   private boolean finished = false; // Whether game is finished
   private int outcome; // Final outcome, 1 if first player wins, 0 for draw and -1 if second player-
                        // wins
-  private LinkedList<int[]> history = new LinkedList<>();
-  // private int[] previousState = {1, 0, 0, 0, 0}; // isMaximplayersturn, finished,
-  // outcome, x, y
+  // History entries pack the cell of the move with the state from before it: bits 0-23 hold the
+  // cell index, bit 24 the player to move, bit 25 the finished flag and bits 26-27 the outcome + 1
+  private static final int CELL_MASK = (1 << 24) - 1;
+  private static final int TURN_BIT = 1 << 24;
+  private static final int FINISHED_BIT = 1 << 25;
+  private static final int OUTCOME_SHIFT = 26;
+  private final int[] history; // ring buffer of packed entries, oldest at historyStart
+  private int historyStart; // index of the oldest entry
+  private int historySize; // number of entries in the ring buffer
 
   /**
    * Initialize the Game Instance
@@ -26,6 +29,9 @@ public class Game {
    */
   public Game(Board board) {
     this.board = board;
+    // a game cannot last longer than the number of cells, so the buffer never has to grow
+    int cells = board.getBitBoard().getCellCount();
+    this.history = new int[Math.min(MAX_HISTORY_LEN, cells)];
   }
 
   /**
@@ -59,38 +65,33 @@ public class Game {
     if (this.finished) {
       throw new IllegalArgumentException("The game already finished");
     }
-    board.select(x, y);
-    if (!board.isCellEmpty()) {
-      board.clearSelection();
+    if (!board.isCellEmpty(x, y)) {
       throw new IllegalArgumentException("The cell is not empty");
     }
 
     addToHistory(x, y);
-    board.writeToCell(isMaximizingPlayerTurn);
-    computeOutcome();
-    board.clearSelection();
+    board.writeToCell(x, y, isMaximizingPlayerTurn);
+    computeOutcome(x, y);
     setPlayerTurn(!isMaximizingPlayerTurn);
   }
 
   /**
-   * Undo the previous move played if any
+   * Undo the previous move played if any. Without any move left in the history the game is reset.
    */
   public void undoPreviousMove() {
-    try {
-      int[] previousState = history.removeLast();
-      int x = previousState[3];
-      int y = previousState[4];
-      board.select(x, y);
-      board.clearCell();
-      computeOutcome();
-      board.clearSelection();
-      isMaximizingPlayerTurn = previousState[0] == 1 ? true : false;
-    } catch (NoSuchElementException e) {
-      System.out.println("Game resetted: " + e.getMessage());
+    if (historySize == 0) {
       resetGame();
-    } catch (Exception e) {
-      System.out.println("Error: " + e.getMessage());
+      return;
     }
+    historySize--;
+    int entry = history[(historyStart + historySize) % history.length];
+    int columns = board.getColumnCount();
+    int cell = entry & CELL_MASK;
+    board.clearCell(cell / columns, cell % columns);
+    // the history entry holds the state from before the move, nothing to recompute
+    isMaximizingPlayerTurn = (entry & TURN_BIT) != 0;
+    finished = (entry & FINISHED_BIT) != 0;
+    outcome = (entry >>> OUTCOME_SHIFT) - 1;
   }
 
   /**
@@ -102,9 +103,29 @@ public class Game {
     return isMaximizingPlayerTurn;
   }
 
+  /**
+   * Check whether the game is finished
+   * 
+   * @return True if a player won or the board is full
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
   /**
    * Get the outcome of the game at the time of calling
    * 
+   * @return FIRST_PLAYER_WIN, SECOND_PLAYER_WIN, or DRAW which is also returned while the game is
+   *         not finished
+   */
+  public int getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Get the outcome of the game at the time of calling. Allocates the result, prefer isFinished
+   * and getOutcome in loops.
+   * 
    * @return [<finished>,<outcome>] where finished = (0 (not finished)| 1 (finished)), outcome = (-1
    *         (seconda player won) | 0 (draw or not finished) | 1 (first player won))
    */
@@ -115,28 +136,58 @@ public class Game {
     return localOutcome;
   }
 
+  /**
+   * Get the number of moves in the history
+   * 
+   * @return The number of moves that can be undone, at most MAX_HISTORY_LEN
+   */
+  public int getMoveCount() {
+    return historySize;
+  }
+
+  /**
+   * Get a move of the history
+   * 
+   * @param index 0 for the oldest move in the history, getMoveCount() - 1 for the last one
+   * @return The cell index of the move, x * columns + y
+   * @throws IndexOutOfBoundsException If there is no such move
+   */
+  public int getMove(int index) {
+    if (index < 0 || index >= historySize) {
+      throw new IndexOutOfBoundsException("No move " + index + " in the history");
+    }
+    return history[(historyStart + index) % history.length] & CELL_MASK;
+  }
+
+  /**
+   * Get the Zobrist hash of the current position including the player to move. It is kept up to
+   * date by play and undoPreviousMove.
+   *
+   * @return The hash of the position
+   */
+  public long getHash() {
+    return board.getBitBoard().getHash(isMaximizingPlayerTurn);
+  }
+
   public Board getBoard() {
     return board;
   }
 
   /**
    * Compute the outcome if winning condition occurs or draw other wise unless the game is not
-   * finished
+   * finished. Only the lines through the last move can have been completed by it. Package-private
+   * so that the benchmarks can measure it on its own.
+   *
+   * @param x The row index of the last move
+   * @param y The column index of the last move
    */
-  private void computeOutcome() {
-
-    int trace = board.getTrace();
-    if (checkAndSetTerminalStateFromSum(trace))
+  void computeOutcome(int x, int y) {
+    // a win is a window through the move holding winLength marks of the player, read from the
+    // mark counts the bitboard keeps per window
+    BitBoard cells = board.getBitBoard();
+    if (cells.isWinningCell(cells.cellIndex(x, y), isMaximizingPlayerTurn)) {
+      setTerminalState(isMaximizingPlayerTurn ? FIRST_PLAYER_WIN : SECOND_PLAYER_WIN);
       return;
-    int antiTrace = board.getAntiTrace();
-    if (checkAndSetTerminalStateFromSum(antiTrace))
-      return;
-    // check for winning row and column
-    for (int i = 0; i < board.getBoardSize(); i++) {
-      if (checkAndSetTerminalStateFromSum(board.getRowSum(i)))
-        return;
-      if (checkAndSetTerminalStateFromSum(board.getColumnSum(i)))
-        return;
     }
     if (checkForDraw())
       return;
@@ -145,28 +196,24 @@ public class Game {
   }
 
   /**
-   * Set the terminal state of the Game.
+   * Restore the finished flag and outcome, for positions that are not reached by playing moves
    * 
+   * @param finished Whether the game is finished
    * @param outcome The outcome of the game
    */
-  private void setTerminalState(int outcome) {
-    this.finished = true;
+  void restoreOutcome(boolean finished, int outcome) {
+    this.finished = finished;
     this.outcome = outcome;
   }
 
   /**
-   * Check whether terminal state is reached and then set terminal state.
+   * Set the terminal state of the Game.
    * 
-   * @param sum The sum of row, column, diagonal or anti-diagonal elements
-   * @return True if terminal state is reached, False otherwise
+   * @param outcome The outcome of the game
    */
-  private boolean checkAndSetTerminalStateFromSum(int sum) {
-    if (Math.abs(sum) == this.board.getBoardSize()) {
-      int outcome = sum > 0 ? FIRST_PLAYER_WIN : SECOND_PLAYER_WIN;
-      setTerminalState(outcome);
-      return true;
-    }
-    return false;
+  private void setTerminalState(int outcome) {
+    this.finished = true;
+    this.outcome = outcome;
   }
 
   /**
@@ -189,12 +236,15 @@ public class Game {
    * @param y The column index of current move
    */
   private void addToHistory(int x, int y) {
-    int len = history.size();
-    int[] historyEntry =
-        {isMaximizingPlayerTurn ? 1 : 0, finished ? FINISHED : NOT_FINISHED, outcome, x, y};
-    history.add(historyEntry);
-    if (len + 1 > MAX_HISTORY_LEN) {
-      history.removeFirst();
+    int entry = board.getBitBoard().cellIndex(x, y) | (isMaximizingPlayerTurn ? TURN_BIT : 0)
+        | (finished ? FINISHED_BIT : 0) | ((outcome + 1) << OUTCOME_SHIFT);
+    if (historySize == history.length) {
+      // full, the oldest entry is overwritten
+      history[historyStart] = entry;
+      historyStart = (historyStart + 1) % history.length;
+    } else {
+      history[(historyStart + historySize) % history.length] = entry;
+      historySize++;
     }
   }
 
@@ -202,6 +252,7 @@ public class Game {
    * Reset the history
    */
   private void clearHistory() {
-    history = new LinkedList<>();
+    historyStart = 0;
+    historySize = 0;
   }
 }
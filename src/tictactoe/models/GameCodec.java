@@ -0,0 +1,264 @@
+package tictactoe.models;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format of a game, read and written in place on a ByteBuffer:
+ * <ul>
+ * <li>the board size N and the number of moves, as unsigned varints (7 bits per byte, low bits
+ * first, high bit set on every byte but the last);</li>
+ * <li>a flags byte: bit 0 set when the second player is to move, bit 1 set when the game is
+ * finished, bits 2-3 the outcome + 1;</li>
+ * <li>the position, 2 bits per cell in row-major order (0 empty, 1 first player, 2 second player),
+ * padded to a whole byte;</li>
+ * <li>the move list, oldest first, each move a cell index of ceil(log2(N * N)) bits, padded to a
+ * whole byte.</li>
+ * </ul>
+ *
+ * The move list may stop short of the position, e.g. when the history was capped by
+ * MAX_HISTORY_LEN or only the position is encoded: decoding restores the position, takes the cells
+ * of the move list off again and replays the moves, so the history and the outcome are rebuilt by
+ * Game.play. A full 3x3 game takes 11 bytes.
+ *
+ * Only classic N x N games won by a full line are encoded, see {@link BitBoard#isClassic()}.
+ */
+public final class GameCodec {
+  static final int SECOND_PLAYER_TURN = 1;
+  static final int FINISHED = 1 << 1;
+  static final int OUTCOME_SHIFT = 2;
+  private static final int FIRST_PLAYER = 1;
+  private static final int SECOND_PLAYER = 2;
+
+  private GameCodec() {}
+
+  /**
+   * Get the number of bytes encode will write
+   *
+   * @param g The game
+   * @param isWithMoves Whether the move list is included
+   * @return The encoded size in bytes
+   * @throws IllegalArgumentException when the game is not classic
+   */
+  public static int encodedSize(Game g, boolean isWithMoves) {
+    checkClassic(g.getBoard().getBitBoard());
+    int N = g.getBoard().getBoardSize();
+    int moves = isWithMoves ? g.getMoveCount() : 0;
+    return varintSize(N) + varintSize(moves) + 1 + positionBytes(N)
+        + (int) (((long) moves * bitsPerMove(N) + 7) / 8);
+  }
+
+  /**
+   * Write a game with its move list at the position of a buffer, advancing it
+   *
+   * @param g The game
+   * @param out The buffer
+   * @throws java.nio.BufferOverflowException when the buffer has less than encodedSize bytes left
+   */
+  public static void encode(Game g, ByteBuffer out) {
+    encode(g, out, true);
+  }
+
+  /**
+   * Write a game at the position of a buffer, advancing it
+   *
+   * @param g The game
+   * @param out The buffer
+   * @param isWithMoves Whether to include the move list, or only the position
+   * @throws java.nio.BufferOverflowException when the buffer has less than encodedSize bytes left
+   * @throws IllegalArgumentException when the game is not classic
+   */
+  public static void encode(Game g, ByteBuffer out, boolean isWithMoves) {
+    BitBoard cells = g.getBoard().getBitBoard();
+    checkClassic(cells);
+    int N = cells.getBoardSize();
+    int moves = isWithMoves ? g.getMoveCount() : 0;
+    writeVarint(out, N);
+    writeVarint(out, moves);
+    out.put((byte) ((g.isMaximizingPlayerTurn() ? 0 : SECOND_PLAYER_TURN)
+        | (g.isFinished() ? FINISHED : 0) | ((g.getOutcome() + 1) << OUTCOME_SHIFT)));
+
+    long bits = 0; // bits not yet written, oldest in the low bits
+    int nBits = 0;
+    for (int cell = 0; cell < cells.getCellCount(); cell++) {
+      int value = cells.read(cell);
+      bits |= (long) (value > 0 ? FIRST_PLAYER : value < 0 ? SECOND_PLAYER : 0) << nBits;
+      nBits += 2;
+      if (nBits >= 8) {
+        out.put((byte) bits);
+        bits >>>= 8;
+        nBits -= 8;
+      }
+    }
+    flush(out, bits, nBits);
+
+    int width = bitsPerMove(N);
+    bits = 0;
+    nBits = 0;
+    for (int i = 0; i < moves; i++) {
+      bits |= (long) g.getMove(i) << nBits;
+      nBits += width;
+      while (nBits >= 8) {
+        out.put((byte) bits);
+        bits >>>= 8;
+        nBits -= 8;
+      }
+    }
+    flush(out, bits, nBits);
+  }
+
+  /**
+   * Read a game from the position of a buffer, advancing it
+   *
+   * @param in The buffer
+   * @return A new game in the decoded state
+   * @throws IllegalArgumentException when the data is not a valid game
+   */
+  public static Game decode(ByteBuffer in) {
+    int N = readVarint(in.duplicate());
+    if (N < 1 || positionBytes(N) > in.remaining()) {
+      throw new IllegalArgumentException("Invalid board size " + N);
+    }
+    Game g = new Game(new Board(N));
+    decode(in, g);
+    return g;
+  }
+
+  /**
+   * Read a game from the position of a buffer into an existing game, advancing the buffer. Nothing
+   * is allocated.
+   *
+   * @param in The buffer
+   * @param g The game to overwrite, its board must have the encoded size and be classic
+   * @throws IllegalArgumentException when the data is not a valid game for this board
+   */
+  public static void decode(ByteBuffer in, Game g) {
+    checkClassic(g.getBoard().getBitBoard());
+    try {
+      Board board = g.getBoard();
+      int N = board.getBoardSize();
+      if (readVarint(in) != N) {
+        throw new IllegalArgumentException("The encoded game is not a " + N + "x" + N + " game");
+      }
+      int moves = readVarint(in);
+      int flags = in.get();
+      int nCells = N * N;
+      if (moves > nCells) {
+        throw new IllegalArgumentException("More moves than cells");
+      }
+      g.resetGame();
+
+      for (int i = 0; i < positionBytes(N); i++) {
+        int packed = in.get();
+        for (int cell = 4 * i; cell < Math.min(nCells, 4 * i + 4); cell++) {
+          int value = (packed >>> (2 * (cell % 4))) & 3;
+          if (value == FIRST_PLAYER || value == SECOND_PLAYER) {
+            board.writeToCell(cell / N, cell % N, value == FIRST_PLAYER);
+          } else if (value != 0) {
+            throw new IllegalArgumentException("Invalid value in cell " + cell);
+          }
+        }
+      }
+
+      // take the cells of the move list off the board, then replay them so that the history and
+      // the outcome are rebuilt by play
+      boolean isSecondPlayerTurn = (flags & SECOND_PLAYER_TURN) != 0;
+      boolean isFirstMoveByFirstPlayer = (moves % 2 == 0) != isSecondPlayerTurn;
+      int width = bitsPerMove(N);
+      int movesStart = in.position();
+      long bits = 0; // bits not yet consumed, oldest in the low bits
+      int nBits = 0;
+      for (int i = 0; i < moves; i++) {
+        while (nBits < width) {
+          bits |= (long) (in.get() & 0xff) << nBits;
+          nBits += 8;
+        }
+        int cell = (int) (bits & ((1L << width) - 1));
+        bits >>>= width;
+        nBits -= width;
+        boolean isFirstPlayer = isFirstMoveByFirstPlayer == (i % 2 == 0);
+        int expected = isFirstPlayer ? 1 : -1;
+        if (cell >= nCells || board.readFromCell(cell / N, cell % N) != expected) {
+          throw new IllegalArgumentException("Move " + i + " does not match the position");
+        }
+        board.clearCell(cell / N, cell % N);
+      }
+      int movesEnd = in.position();
+
+      in.position(movesStart);
+      g.setPlayerTurn(isFirstMoveByFirstPlayer);
+      bits = 0;
+      nBits = 0;
+      for (int i = 0; i < moves; i++) {
+        while (nBits < width) {
+          bits |= (long) (in.get() & 0xff) << nBits;
+          nBits += 8;
+        }
+        int cell = (int) (bits & ((1L << width) - 1));
+        bits >>>= width;
+        nBits -= width;
+        // play rejects a cell played twice and a move after the end of the game
+        g.play(cell / N, cell % N);
+      }
+      in.position(movesEnd);
+      if (moves == 0) {
+        // nothing was replayed, the outcome is taken as encoded
+        g.restoreOutcome((flags & FINISHED) != 0, ((flags >>> OUTCOME_SHIFT) & 3) - 1);
+      }
+      g.setPlayerTurn(!isSecondPlayerTurn);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated game data", e);
+    }
+  }
+
+  /**
+   * Number of bits of a cell index
+   */
+  static int bitsPerMove(int N) {
+    return Math.max(1, 32 - Integer.numberOfLeadingZeros(N * N - 1));
+  }
+
+  static int positionBytes(int N) {
+    return (int) ((2L * N * N + 7) / 8);
+  }
+
+  private static void checkClassic(BitBoard b) {
+    if (!b.isClassic()) {
+      throw new IllegalArgumentException("Only N x N games won by a full line can be encoded");
+    }
+  }
+
+  private static void flush(ByteBuffer out, long bits, int nBits) {
+    if (nBits > 0) {
+      out.put((byte) bits);
+    }
+  }
+
+  private static int varintSize(int value) {
+    int size = 1;
+    while ((value >>>= 7) != 0) {
+      size++;
+    }
+    return size;
+  }
+
+  private static void writeVarint(ByteBuffer out, int value) {
+    while ((value & ~0x7f) != 0) {
+      out.put((byte) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  private static int readVarint(ByteBuffer in) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.get();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Invalid varint");
+  }
+}
@@ -1,6 +1,9 @@
 package tictactoe.models;
 
 import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -49,7 +52,143 @@ public class GameTest {
     game.play(0, 0);
   }
 
-  // Add more test cases as needed...
-}
+  @Test
+  public void testAntiDiagonalWinOnLargerBoard() {
+    game = new Game(new Board(4));
+    int[][] moves = {{0, 3}, {0, 0}, {1, 2}, {1, 1}, {2, 1}, {3, 3}, {3, 0}};
+    for (int[] move : moves) {
+      game.play(move[0], move[1]);
+    }
+    assertEquals(Game.FINISHED, game.getGameOutcome()[0]);
+    assertEquals(Game.FIRST_PLAYER_WIN, game.getGameOutcome()[1]);
+    // undoing the winning move reopens the game
+    game.undoPreviousMove();
+    assertEquals(Game.NOT_FINISHED, game.getGameOutcome()[0]);
+  }
 
+  @Test
+  public void testLineSumsAreUpdatedInPlace() {
+    Board board = game.getBoard();
+    int[] rowSums = board.getRowSums();
+    int[] columnSums = board.getColumnSums();
+    game.play(0, 0); // Player X
+    game.play(0, 2); // Player O
+    game.play(1, 1); // Player X
+    assertSame(rowSums, board.getRowSums());
+    assertSame(columnSums, board.getColumnSums());
+    assertArrayEquals(new int[] {0, 1, 0}, rowSums);
+    assertArrayEquals(new int[] {1, 1, -1}, columnSums);
+    assertEquals(2, board.getTrace());
+    assertEquals(0, board.getAntiTrace());
+    game.undoPreviousMove();
+    assertArrayEquals(new int[] {0, 0, 0}, rowSums);
+    assertEquals(1, board.getTrace());
+  }
 
+  @Test
+  public void testUndoRestoresEveryMoveAndStopsAtTheStart() {
+    long emptyHash = game.getHash();
+    int[][] moves = {{1, 1}, {0, 0}, {2, 2}, {0, 2}, {0, 1}, {2, 1}, {1, 0}, {1, 2}, {2, 0}};
+    long[] hashes = new long[moves.length];
+    for (int i = 0; i < moves.length; i++) {
+      hashes[i] = game.getHash();
+      game.play(moves[i][0], moves[i][1]);
+    }
+    assertEquals(Game.FINISHED, game.getGameOutcome()[0]);
+    for (int i = moves.length - 1; i >= 0; i--) {
+      game.undoPreviousMove();
+      assertEquals(hashes[i], game.getHash());
+      assertEquals(Game.NOT_FINISHED, game.getGameOutcome()[0]);
+      assertEquals(i % 2 == 0, game.isMaximizingPlayerTurn());
+    }
+    // nothing left to undo
+    game.undoPreviousMove();
+    assertEquals(emptyHash, game.getHash());
+    assertTrue(game.isMaximizingPlayerTurn());
+  }
+
+  @Test
+  public void testOutcomeAccessorsAndDirectCellAccess() {
+    int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+    for (int[] move : moves) {
+      assertFalse(game.isFinished());
+      game.play(move[0], move[1]);
+    }
+    assertTrue(game.isFinished());
+    assertEquals(Game.FIRST_PLAYER_WIN, game.getOutcome());
+    Board board = game.getBoard();
+    assertEquals(-1, board.readFromCell(1, 1));
+    assertTrue(board.isSelectionEmpty());
+    board.clearCell(0, 2);
+    assertTrue(board.isCellEmpty(0, 2));
+    assertEquals(2, board.getRowSum(0));
+    board.writeToCell(0, 2, false);
+    assertEquals(1, board.getRowSum(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> board.readFromCell(3, 0));
+  }
+
+  @Test
+  public void testRectangularGameIsWonByKInARow() {
+    Game g = new Game(new Board(4, 6, 4));
+    int[][] moves = {{0, 5}, {0, 0}, {1, 5}, {1, 0}, {2, 5}, {2, 0}, {3, 5}};
+    for (int[] move : moves) {
+      assertFalse(g.isFinished());
+      g.play(move[0], move[1]);
+    }
+    assertEquals(Game.FIRST_PLAYER_WIN, g.getOutcome());
+    assertEquals(3 * 6 + 5, g.getMove(6));
+    assertArrayEquals(new int[] {0, 0, 0, 1}, g.getBoard().getRowSums());
+    g.undoPreviousMove();
+    assertFalse(g.isFinished());
+    assertTrue(g.getBoard().isCellEmpty(3, 5));
+    assertThrows(IndexOutOfBoundsException.class, () -> g.getBoard().readFromCell(4, 0));
+  }
+
+  @Test
+  public void testCodecRoundTripsGamesOfEverySize() {
+    Random random = new Random(3);
+    for (int N = 1; N <= 12; N++) {
+      for (int length = 0; length <= N * N; length += Math.max(1, N * N / 4)) {
+        Game original = new Game(new Board(N));
+        while (original.getMoveCount() < length && !original.isFinished()) {
+          int cell = random.nextInt(N * N);
+          if (original.getBoard().isCellEmpty(cell / N, cell % N)) {
+            original.play(cell / N, cell % N);
+          }
+        }
+        for (boolean isWithMoves : new boolean[] {true, false}) {
+          ByteBuffer buffer = ByteBuffer.allocate(GameCodec.encodedSize(original, isWithMoves));
+          GameCodec.encode(original, buffer, isWithMoves);
+          assertFalse(buffer.hasRemaining());
+          buffer.flip();
+          Game decoded = GameCodec.decode(buffer);
+          assertFalse(buffer.hasRemaining());
+          assertEquals(original.getHash(), decoded.getHash());
+          assertEquals(original.isFinished(), decoded.isFinished());
+          assertEquals(original.getOutcome(), decoded.getOutcome());
+          assertEquals(isWithMoves ? original.getMoveCount() : 0, decoded.getMoveCount());
+          for (int i = 0; i < decoded.getMoveCount(); i++) {
+            assertEquals(original.getMove(i), decoded.getMove(i));
+          }
+        }
+      }
+    }
+    // a full 3x3 game: 3 header bytes, 3 bytes of cells, 9 moves of 4 bits
+    int[][] moves = {{1, 1}, {0, 0}, {2, 2}, {0, 2}, {0, 1}, {2, 1}, {1, 0}, {1, 2}, {2, 0}};
+    for (int[] move : moves) {
+      game.play(move[0], move[1]);
+    }
+    assertEquals(11, GameCodec.encodedSize(game, true));
+  }
+
+  @Test
+  public void testCodecRejectsGamesOfNonClassicBoards() {
+    // the codec only stores square boards won by a full row
+    Game rectangular = new Game(new Board(4, 6, 4));
+    assertThrows(IllegalArgumentException.class, () -> GameCodec.encodedSize(rectangular, true));
+    assertThrows(IllegalArgumentException.class,
+        () -> GameCodec.encode(rectangular, ByteBuffer.allocate(64), false));
+  }
+
+  // Add more test cases as needed...
+}
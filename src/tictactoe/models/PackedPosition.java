@@ -0,0 +1,86 @@
+package tictactoe.models;
+
+/**
+ * Encodes a position of a board up to 5x5 in a single long: 2 bits per cell in row-major order (0
+ * empty, 1 first player, 2 second player) and a bit for the player to move. The empty board with
+ * the first player to move encodes as 0.
+ */
+public final class PackedPosition {
+  public static final int MAX_SIZE = 5; // 25 cells, 50 bits
+  private static final long SECOND_PLAYER_TURN = 1L << 62;
+  private static final int FIRST_PLAYER = 1;
+  private static final int SECOND_PLAYER = 2;
+
+  private PackedPosition() {}
+
+  /**
+   * Encode the current position of a game
+   *
+   * @param g The game
+   * @return The packed position
+   * @throws IllegalArgumentException when the board is larger than MAX_SIZE
+   */
+  public static long encode(Game g) {
+    return encode(g.getBoard().getBitBoard(), g.isMaximizingPlayerTurn());
+  }
+
+  /**
+   * Encode a position
+   *
+   * @param b The board
+   * @param isMaximizingPlayerTurn Whether the first player is to move
+   * @return The packed position
+   * @throws IllegalArgumentException when the board is larger than MAX_SIZE or not classic
+   */
+  public static long encode(BitBoard b, boolean isMaximizingPlayerTurn) {
+    checkSize(b);
+    long position = isMaximizingPlayerTurn ? 0 : SECOND_PLAYER_TURN;
+    for (int cell = 0; cell < b.getCellCount(); cell++) {
+      int value = b.read(cell);
+      if (value != 0) {
+        position |= (long) (value > 0 ? FIRST_PLAYER : SECOND_PLAYER) << (2 * cell);
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Set a board to a packed position
+   *
+   * @param position The packed position
+   * @param b The board to overwrite, of the size the position was encoded for
+   * @throws IllegalArgumentException when a cell holds an invalid value
+   */
+  public static void decode(long position, BitBoard b) {
+    checkSize(b);
+    b.clear();
+    for (int cell = 0; cell < b.getCellCount(); cell++) {
+      int value = (int) (position >>> (2 * cell)) & 3;
+      if (value == FIRST_PLAYER || value == SECOND_PLAYER) {
+        b.play(cell, value == FIRST_PLAYER);
+      } else if (value != 0) {
+        throw new IllegalArgumentException("Invalid value in cell " + cell);
+      }
+    }
+  }
+
+  /**
+   * Get the player to move of a packed position
+   *
+   * @param position The packed position
+   * @return True if the first player is to move
+   */
+  public static boolean isMaximizingPlayerTurn(long position) {
+    return (position & SECOND_PLAYER_TURN) == 0;
+  }
+
+  private static void checkSize(BitBoard b) {
+    if (!b.isClassic()) {
+      throw new IllegalArgumentException("Only N x N boards won by a full line can be packed");
+    }
+    if (b.getBoardSize() > MAX_SIZE) {
+      throw new IllegalArgumentException("Boards above " + MAX_SIZE + "x" + MAX_SIZE
+          + " do not fit in a packed position");
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package tictactoe.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Move path enumeration ("perft"): plays every legal move sequence from the empty board with
+ * {@link Game#play} and {@link Game#undoPreviousMove}, and counts the positions reached at every
+ * depth and the games that end there, by outcome. No AI is involved, so the node rate measures the
+ * play/undo path alone, and the counts are an oracle for changes to Board and Game: on 3x3 there
+ * are 549,946 move sequences and 255,168 complete games.
+ *
+ * The tree is walked depth first and only counted, never stored. The parallel walk splits the
+ * first plies into fork-join tasks, each with a Game of its own.
+ */
+public final class Perft {
+  public static final int DEFAULT_SPLIT_DEPTH = 2;
+
+  /**
+   * Counts of one enumeration, by depth in plies from the empty board
+   */
+  public static final class Counts {
+    private final long[] nodes; // [d] = move sequences of d plies, finished games included
+    private final long[] firstPlayerWins; // [d] = games won by the first player on ply d
+    private final long[] secondPlayerWins; // [d] = games won by the second player on ply d
+    private final long[] draws; // [d] = games drawn on ply d
+
+    Counts(int maxDepth) {
+      nodes = new long[maxDepth + 1];
+      firstPlayerWins = new long[maxDepth + 1];
+      secondPlayerWins = new long[maxDepth + 1];
+      draws = new long[maxDepth + 1];
+    }
+
+    void add(Counts other) {
+      for (int d = 0; d < nodes.length; d++) {
+        nodes[d] += other.nodes[d];
+        firstPlayerWins[d] += other.firstPlayerWins[d];
+        secondPlayerWins[d] += other.secondPlayerWins[d];
+        draws[d] += other.draws[d];
+      }
+    }
+
+    public int getMaxDepth() {
+      return nodes.length - 1;
+    }
+
+    public long getNodes(int depth) {
+      return nodes[depth];
+    }
+
+    public long getFirstPlayerWins(int depth) {
+      return firstPlayerWins[depth];
+    }
+
+    public long getSecondPlayerWins(int depth) {
+      return secondPlayerWins[depth];
+    }
+
+    public long getDraws(int depth) {
+      return draws[depth];
+    }
+
+    /**
+     * Get the number of move sequences of all depths
+     *
+     * @return The node count, the empty board included
+     */
+    public long getNodeCount() {
+      long total = 0;
+      for (long n : nodes) {
+        total += n;
+      }
+      return total;
+    }
+
+    /**
+     * Get the number of games that ended within the depth limit
+     *
+     * @return The count of won and drawn games
+     */
+    public long getGameCount() {
+      long total = 0;
+      for (int d = 0; d < nodes.length; d++) {
+        total += firstPlayerWins[d] + secondPlayerWins[d] + draws[d];
+      }
+      return total;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(String.format(Locale.ROOT, "%5s %16s %14s %14s %14s%n", "depth", "nodes",
+          "first wins", "second wins", "draws"));
+      for (int d = 0; d < nodes.length; d++) {
+        sb.append(String.format(Locale.ROOT, "%5d %,16d %,14d %,14d %,14d%n", d, nodes[d],
+            firstPlayerWins[d], secondPlayerWins[d], draws[d]));
+      }
+      sb.append(String.format(Locale.ROOT, "total %,16d nodes, %,d games%n", getNodeCount(),
+          getGameCount()));
+      return sb.toString();
+    }
+  }
+
+  private Perft() {}
+
+  /**
+   * Enumerate every move sequence up to a depth on one thread
+   *
+   * @param rows The number of rows of the board
+   * @param columns The number of columns of the board
+   * @param winLength The number of marks in a row that wins
+   * @param maxDepth The deepest ply to reach, capped at the number of cells
+   * @return The counts by depth
+   */
+  public static Counts count(int rows, int columns, int winLength, int maxDepth) {
+    Game g = new Game(new Board(rows, columns, winLength));
+    Counts counts = new Counts(Math.min(maxDepth, rows * columns));
+    walk(g, 0, counts);
+    return counts;
+  }
+
+  /**
+   * Enumerate every move sequence up to a depth on a fork-join pool
+   *
+   * @param pool The pool to run on
+   * @param rows The number of rows of the board
+   * @param columns The number of columns of the board
+   * @param winLength The number of marks in a row that wins
+   * @param maxDepth The deepest ply to reach, capped at the number of cells
+   * @param splitDepth The plies below which every move becomes a task of its own
+   * @return The counts by depth, the same as {@link #count}
+   */
+  public static Counts count(ForkJoinPool pool, int rows, int columns, int winLength,
+      int maxDepth, int splitDepth) {
+    int depth = Math.min(maxDepth, rows * columns);
+    return pool.invoke(new WalkTask(rows, columns, winLength, depth, splitDepth, new int[0]));
+  }
+
+  /**
+   * Count the position of a game and walk the moves below it
+   *
+   * @param g The game, restored to its position on return
+   * @param ply The number of moves played since the empty board
+   * @param counts The counts to add to
+   */
+  private static void walk(Game g, int ply, Counts counts) {
+    counts.nodes[ply]++;
+    if (g.isFinished()) {
+      countOutcome(g, ply, counts);
+      return;
+    }
+    if (ply == counts.getMaxDepth()) {
+      return;
+    }
+    Board b = g.getBoard();
+    for (int x = 0; x < b.getRowCount(); x++) {
+      for (int y = 0; y < b.getColumnCount(); y++) {
+        if (b.isCellEmpty(x, y)) {
+          g.play(x, y);
+          walk(g, ply + 1, counts);
+          g.undoPreviousMove();
+        }
+      }
+    }
+  }
+
+  private static void countOutcome(Game g, int ply, Counts counts) {
+    switch (g.getOutcome()) {
+      case Game.FIRST_PLAYER_WIN:
+        counts.firstPlayerWins[ply]++;
+        break;
+      case Game.SECOND_PLAYER_WIN:
+        counts.secondPlayerWins[ply]++;
+        break;
+      default:
+        counts.draws[ply]++;
+    }
+  }
+
+  /**
+   * Walks the tree below a move path: forks one task per move above the split depth, walks
+   * sequentially below it
+   */
+  private static class WalkTask extends RecursiveTask<Counts> {
+    private final int rows;
+    private final int columns;
+    private final int winLength;
+    private final int maxDepth;
+    private final int splitDepth;
+    private final int[] path; // cells played from the empty board, x * columns + y
+
+    WalkTask(int rows, int columns, int winLength, int maxDepth, int splitDepth, int[] path) {
+      this.rows = rows;
+      this.columns = columns;
+      this.winLength = winLength;
+      this.maxDepth = maxDepth;
+      this.splitDepth = splitDepth;
+      this.path = path;
+    }
+
+    @Override
+    protected Counts compute() {
+      Game g = new Game(new Board(rows, columns, winLength));
+      for (int cell : path) {
+        g.play(cell / columns, cell % columns);
+      }
+      Counts counts = new Counts(maxDepth);
+      int ply = path.length;
+      if (ply >= splitDepth || ply == maxDepth || g.isFinished()) {
+        walk(g, ply, counts);
+        return counts;
+      }
+      counts.nodes[ply]++;
+      List<WalkTask> children = new ArrayList<>();
+      for (int cell = 0; cell < rows * columns; cell++) {
+        if (g.getBoard().isCellEmpty(cell / columns, cell % columns)) {
+          int[] child = Arrays.copyOf(path, ply + 1);
+          child[ply] = cell;
+          children.add(new WalkTask(rows, columns, winLength, maxDepth, splitDepth, child));
+        }
+      }
+      for (WalkTask child : invokeAll(children)) {
+        counts.add(child.join());
+      }
+      return counts;
+    }
+  }
+
+  /**
+   * Enumerate a board on one thread and on all processors, and report the counts and node rates
+   *
+   * @param args Optionally -N board size (default 3), -k win length (default N), -depth maximum
+   *        ply (default: every cell), -threads (default available processors) and -split depth
+   *        (default DEFAULT_SPLIT_DEPTH)
+   */
+  public static void main(String[] args) {
+    int N = 3;
+    int k = -1;
+    int depth = Integer.MAX_VALUE;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int split = DEFAULT_SPLIT_DEPTH;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-N":
+          N = Integer.parseInt(args[++i]);
+          break;
+        case "-k":
+          k = Integer.parseInt(args[++i]);
+          break;
+        case "-depth":
+          depth = Integer.parseInt(args[++i]);
+          break;
+        case "-threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "-split":
+          split = Integer.parseInt(args[++i]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    if (k < 0) {
+      k = N;
+    }
+
+    long start = System.nanoTime();
+    Counts counts = count(N, N, k, depth);
+    long nanos = System.nanoTime() - start;
+    System.out.print(counts);
+    System.out.printf(Locale.ROOT, "1 thread: %.3f s, %,.0f nodes/s%n", nanos / 1e9,
+        counts.getNodeCount() * 1e9 / nanos);
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      start = System.nanoTime();
+      Counts parallel = count(pool, N, N, k, depth, split);
+      nanos = System.nanoTime() - start;
+      System.out.printf(Locale.ROOT, "%d thread%s: %.3f s, %,.0f nodes/s%s%n", threads,
+          threads == 1 ? "" : "s",
+          nanos / 1e9, parallel.getNodeCount() * 1e9 / nanos,
+          parallel.toString().equals(counts.toString()) ? "" : ", COUNTS DIFFER");
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
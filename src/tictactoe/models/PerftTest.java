@@ -0,0 +1,36 @@
+package tictactoe.models;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class PerftTest {
+
+  @Test
+  public void perftMatchesTheKnownGameCounts() {
+    Perft.Counts counts = Perft.count(3, 3, 3, 9);
+    long[] nodes = {1, 9, 72, 504, 3024, 15120, 54720, 148176, 200448, 127872};
+    for (int d = 0; d <= 9; d++) {
+      assertEquals(nodes[d], counts.getNodes(d));
+    }
+    assertEquals(549_946, counts.getNodeCount());
+    assertEquals(255_168, counts.getGameCount());
+    assertEquals(1_440, counts.getFirstPlayerWins(5));
+    assertEquals(5_328, counts.getSecondPlayerWins(6));
+    assertEquals(47_952, counts.getFirstPlayerWins(7));
+    assertEquals(72_576, counts.getSecondPlayerWins(8));
+    assertEquals(81_792, counts.getFirstPlayerWins(9));
+    assertEquals(46_080, counts.getDraws(9));
+
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      assertEquals(counts.toString(), Perft.count(pool, 3, 3, 3, 9, 2).toString());
+      Perft.Counts shallow = Perft.count(pool, 4, 4, 4, 4, 3);
+      assertEquals(Perft.count(4, 4, 4, 4).toString(), shallow.toString());
+      assertEquals(16L * 15 * 14 * 13, shallow.getNodes(4));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package tictactoe.models;
+
+/**
+ * The 8 symmetries (dihedral group) of a square board: 4 rotations and 4 reflections. Every
+ * symmetry is a permutation of cell indices; index 0 is the identity. A rectangular board only has
+ * 4 of them (identity, half turn and the two mirrors); the other 4 are given as the identity, so
+ * that code written for 8 symmetries works unchanged.
+ */
+public final class Symmetry {
+  public static final int COUNT = 8;
+  public static final int IDENTITY = 0;
+
+  private Symmetry() {}
+
+  /**
+   * Map a cell through a symmetry
+   *
+   * @param symmetry The symmetry index (0-7)
+   * @param x The row index of the cell
+   * @param y The column index of the cell
+   * @param N Size of the board (N x N)
+   * @return The cell index (x * N + y) of the image
+   */
+  public static int transform(int symmetry, int x, int y, int N) {
+    int m = N - 1;
+    switch (symmetry) {
+      case 0: // identity
+        return x * N + y;
+      case 1: // rotate 90 degrees clockwise
+        return y * N + (m - x);
+      case 2: // rotate 180 degrees
+        return (m - x) * N + (m - y);
+      case 3: // rotate 270 degrees clockwise
+        return (m - y) * N + x;
+      case 4: // mirror left-right
+        return x * N + (m - y);
+      case 5: // mirror top-bottom
+        return (m - x) * N + y;
+      case 6: // mirror on the diagonal
+        return y * N + x;
+      case 7: // mirror on the anti-diagonal
+        return (m - y) * N + (m - x);
+      default:
+        throw new IllegalArgumentException("Unknown symmetry " + symmetry);
+    }
+  }
+
+  /**
+   * Build the cell permutation of every symmetry
+   *
+   * @param N Size of the board (N x N)
+   * @return [symmetry][cell] = image cell
+   */
+  public static int[][] permutations(int N) {
+    int[][] perms = new int[COUNT][N * N];
+    for (int s = 0; s < COUNT; s++) {
+      for (int x = 0; x < N; x++) {
+        for (int y = 0; y < N; y++) {
+          perms[s][x * N + y] = transform(s, x, y, N);
+        }
+      }
+    }
+    return perms;
+  }
+
+  /**
+   * Build the cell permutation of every symmetry of a rectangular board
+   *
+   * @param rows Number of rows
+   * @param columns Number of columns
+   * @return [symmetry][cell] = image cell, the identity for the symmetries of square boards only
+   */
+  public static int[][] permutations(int rows, int columns) {
+    if (rows == columns) {
+      return permutations(rows);
+    }
+    int[][] perms = new int[COUNT][rows * columns];
+    for (int s = 0; s < COUNT; s++) {
+      for (int x = 0; x < rows; x++) {
+        for (int y = 0; y < columns; y++) {
+          int imageX = s == 2 || s == 5 ? rows - 1 - x : x;
+          int imageY = s == 2 || s == 4 ? columns - 1 - y : y;
+          perms[s][x * columns + y] = imageX * columns + imageY;
+        }
+      }
+    }
+    return perms;
+  }
+
+  /**
+   * Invert every permutation, so that inverse[s][perms[s][cell]] == cell
+   *
+   * @param perms The permutations to invert
+   * @return [symmetry][image cell] = cell
+   */
+  public static int[][] inverse(int[][] perms) {
+    int[][] inverse = new int[perms.length][perms[0].length];
+    for (int s = 0; s < perms.length; s++) {
+      for (int cell = 0; cell < perms[s].length; cell++) {
+        inverse[s][perms[s][cell]] = cell;
+      }
+    }
+    return inverse;
+  }
+}
@@ -0,0 +1,168 @@
+package tictactoe.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import tictactoe.ai.SearchBudget;
+
+/**
+ * Local load test of a {@link SessionManager}: every session gets a client on its own virtual
+ * thread that keeps playing random moves against the AI, starting a new game whenever one ends.
+ * Reports the moves per second and the p50/p99 latency of a move (the client move and the AI
+ * reply).
+ */
+public class LoadGenerator {
+  private static final long SEED = 7; // fixed, so runs can be compared
+
+  /**
+   * Latencies recorded by one client, in nanoseconds
+   */
+  private static class LatencyLog {
+    private long[] samples = new long[256];
+    private int size;
+
+    void add(long nanos) {
+      if (size == samples.length) {
+        samples = Arrays.copyOf(samples, size * 2);
+      }
+      samples[size++] = nanos;
+    }
+  }
+
+  /**
+   * Run the load for a number of sessions
+   *
+   * @param sessions Number of concurrent sessions
+   * @param N The board size
+   * @param seconds Duration of the run
+   * @param budget Budget of every AI search
+   */
+  public static void run(int sessions, int N, int seconds, SearchBudget budget)
+      throws InterruptedException {
+    int processors = Runtime.getRuntime().availableProcessors();
+    try (SessionManager manager = new SessionManager(processors, processors, budget)) {
+      long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+      List<Thread> clients = new ArrayList<>();
+      List<LatencyLog> logs = new ArrayList<>();
+      for (int i = 0; i < sessions; i++) {
+        Session session = manager.openSession(N);
+        LatencyLog log = new LatencyLog();
+        SplittableRandom random = new SplittableRandom(SEED + i);
+        logs.add(log);
+        clients.add(Thread.ofVirtual().start(() -> play(manager, session, random, log, deadline)));
+      }
+      for (Thread client : clients) {
+        client.join();
+      }
+      report(sessions, N, seconds, logs);
+    }
+  }
+
+  /**
+   * Play random moves in a session until the deadline
+   */
+  private static void play(SessionManager manager, Session session, SplittableRandom random,
+      LatencyLog log, long deadline) {
+    while (System.nanoTime() < deadline) {
+      if (session.isFinished()) {
+        session.reset();
+      }
+      int[] move = randomEmptyCell(session.getCells(), random);
+      long start = System.nanoTime();
+      try {
+        manager.submitMove(session.getId(), move[0], move[1]).get();
+      } catch (InterruptedException e) {
+        return;
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Move failed in session " + session.getId(),
+            e.getCause());
+      }
+      log.add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Pick a random empty cell
+   *
+   * @param cells The cell values of the board
+   * @return The cell as [x,y]
+   */
+  private static int[] randomEmptyCell(int[][] cells, SplittableRandom random) {
+    int N = cells.length;
+    while (true) {
+      int cell = random.nextInt(N * N);
+      if (cells[cell / N][cell % N] == 0) {
+        return new int[] {cell / N, cell % N};
+      }
+    }
+  }
+
+  private static void report(int sessions, int N, int seconds, List<LatencyLog> logs) {
+    int total = 0;
+    for (LatencyLog log : logs) {
+      total += log.size;
+    }
+    long[] all = new long[total];
+    int n = 0;
+    for (LatencyLog log : logs) {
+      System.arraycopy(log.samples, 0, all, n, log.size);
+      n += log.size;
+    }
+    Arrays.sort(all);
+    System.out.printf("%,d sessions on %dx%d: %,.0f moves/s, p50 %.3f ms, p99 %.3f ms%n", sessions,
+        N, N, (double) total / seconds, percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6);
+  }
+
+  /**
+   * Nearest-rank percentile of sorted samples
+   */
+  private static long percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(p * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  /**
+   * Run the load test
+   *
+   * @param args Session counts (default 1000 10000), then optionally -N size (default 3),
+   *        -s seconds per run (default 10) and -ms AI time budget (default: full search on 3x3,
+   *        50 ms above)
+   */
+  public static void main(String[] args) throws InterruptedException {
+    List<Integer> counts = new ArrayList<>();
+    int N = 3;
+    int seconds = 10;
+    int millis = -1;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-N":
+          N = Integer.parseInt(args[++i]);
+          break;
+        case "-s":
+          seconds = Integer.parseInt(args[++i]);
+          break;
+        case "-ms":
+          millis = Integer.parseInt(args[++i]);
+          break;
+        default:
+          counts.add(Integer.parseInt(args[i]));
+      }
+    }
+    if (counts.isEmpty()) {
+      counts.add(1_000);
+      counts.add(10_000);
+    }
+    if (millis < 0) {
+      millis = N <= 3 ? 0 : 50;
+    }
+    SearchBudget budget = millis == 0 ? SearchBudget.unlimited() : SearchBudget.ofMillis(millis);
+    for (int sessions : counts) {
+      run(sessions, N, seconds, budget);
+    }
+  }
+}
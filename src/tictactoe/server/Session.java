@@ -0,0 +1,128 @@
+package tictactoe.server;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import tictactoe.ai.SearchResult;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * One game hosted by a {@link SessionManager}: a remote player is the first player and the AI
+ * answers as the second player.
+ *
+ * Game is not thread-safe, so every access to it goes through the session lock and the moves of
+ * a session run one at a time. The lock is a ReentrantLock rather than a synchronized block so that
+ * a virtual thread waiting for the AI does not pin its carrier thread.
+ */
+public class Session {
+  private final long id; // identifier given by the manager
+  private final Game game; // the hosted game, guarded by lock
+  private final SessionManager manager; // runs the AI searches
+  private final ReentrantLock lock = new ReentrantLock(); // serializes the moves of the session
+
+  Session(long id, Board board, SessionManager manager) {
+    this.id = id;
+    this.game = new Game(board);
+    this.manager = manager;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Play a move of the first player, then let the AI reply
+   *
+   * @param x The row index of the move
+   * @param y The column index of the move
+   * @return The AI reply, or null when the move finished the game
+   * @throws IllegalArgumentException when the game is finished or the cell is taken
+   * @throws InterruptedException when interrupted while waiting for the AI
+   */
+  public SearchResult playAndReply(int x, int y) throws InterruptedException {
+    lock.lock();
+    try {
+      game.play(x, y);
+      if (game.isFinished()) {
+        return null;
+      }
+      SearchResult reply = null;
+      try {
+        reply = manager.search(game);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("AI search failed", e.getCause());
+      } finally {
+        if (reply == null) {
+          // no reply, whether the AI failed or the wait for it was interrupted: take the move back
+          // so that the session stays consistent
+          game.undoPreviousMove();
+        }
+      }
+      game.play(reply.getX(), reply.getY());
+      return reply;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Start a new game in this session
+   */
+  public void reset() {
+    lock.lock();
+    try {
+      game.resetGame();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Check whether the game is finished
+   *
+   * @return True if a player won or the board is full
+   */
+  public boolean isFinished() {
+    lock.lock();
+    try {
+      return game.isFinished();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the outcome of the game
+   *
+   * @return Game.FIRST_PLAYER_WIN, Game.SECOND_PLAYER_WIN, or Game.DRAW
+   */
+  public int getOutcome() {
+    lock.lock();
+    try {
+      return game.getOutcome();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Copy the cell values of the board
+   *
+   * @return [x][y] = 1 (first player), -1 (second player) or 0 (empty)
+   */
+  public int[][] getCells() {
+    lock.lock();
+    try {
+      Board board = game.getBoard();
+      int[][] cells = new int[board.getRowCount()][board.getColumnCount()];
+      for (int x = 0; x < cells.length; x++) {
+        for (int y = 0; y < cells[x].length; y++) {
+          cells[x][y] = board.readFromCell(x, y);
+        }
+      }
+      return cells;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package tictactoe.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import tictactoe.ai.Engine;
+import tictactoe.ai.MinimaxAi;
+import tictactoe.ai.SearchBudget;
+import tictactoe.ai.SearchResult;
+import tictactoe.ai.SharedTranspositionTable;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * Hosts many concurrent games without a user interface.
+ *
+ * Every move request runs on its own virtual thread, so thousands of sessions cost little more
+ * than their games. The AI searches are CPU-bound and go to a fixed pool of platform threads, each
+ * with its own {@link Engine}, by default a {@link MinimaxAi}; the default engines share one
+ * {@link SharedTranspositionTable}, kept from one search to the next. Searches of many sessions
+ * overlap, so the table ages by time: a new generation starts every TABLE_EPOCH_MILLIS.
+ *
+ * Backpressure: at most poolSize + queueCapacity searches are running or queued. A move that needs
+ * a search beyond that blocks its virtual thread until a slot frees up, which in turn delays the
+ * completion of the caller's future. The pool queue itself can therefore never overflow.
+ */
+public class SessionManager implements AutoCloseable {
+  public static final int DEFAULT_TABLE_BITS = 20; // 16 MB table shared by the default engines
+  public static final long TABLE_EPOCH_MILLIS = 1_000; // time between two table generations
+  private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong(); // identifier of the next session
+  private final ExecutorService moveThreads = Executors.newVirtualThreadPerTaskExecutor();
+  private final ThreadPoolExecutor aiPool; // runs the searches
+  private final Semaphore searchSlots; // free places in the AI pool, threads and queue
+  private final int maxPendingSearches; // pool size + queue capacity
+  private final SearchBudget budget; // budget of every AI search
+  private final ThreadLocal<Engine> engines; // the engine of each AI thread
+  private final SharedTranspositionTable table; // shared by the default engines, or null
+  private final AtomicLong nextEpoch; // System.nanoTime() of the next generation
+
+  /**
+   * Initialize a manager with one AI thread per processor, a queue of the same size, and full
+   * searches
+   */
+  public SessionManager() {
+    this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+        SearchBudget.unlimited());
+  }
+
+  /**
+   * Initialize a manager
+   *
+   * @param poolSize Number of AI threads
+   * @param queueCapacity Number of searches that may wait for a free AI thread
+   * @param budget Budget of every AI search, bound it on boards above 3x3
+   */
+  public SessionManager(int poolSize, int queueCapacity, SearchBudget budget) {
+    this(poolSize, queueCapacity, budget, new SharedTranspositionTable(DEFAULT_TABLE_BITS));
+  }
+
+  /**
+   * Initialize a manager whose engines share one table
+   */
+  private SessionManager(int poolSize, int queueCapacity, SearchBudget budget,
+      SharedTranspositionTable table) {
+    this(poolSize, queueCapacity, budget, () -> new MinimaxAi(table), table);
+  }
+
+  /**
+   * Initialize a manager with another engine, e.g. {@link tictactoe.ai.MctsAi} for large boards
+   *
+   * @param poolSize Number of AI threads
+   * @param queueCapacity Number of searches that may wait for a free AI thread
+   * @param budget Budget of every AI search
+   * @param engineFactory Creates the engine of each AI thread
+   */
+  public SessionManager(int poolSize, int queueCapacity, SearchBudget budget,
+      Supplier<? extends Engine> engineFactory) {
+    this(poolSize, queueCapacity, budget, engineFactory, null);
+  }
+
+  private SessionManager(int poolSize, int queueCapacity, SearchBudget budget,
+      Supplier<? extends Engine> engineFactory, SharedTranspositionTable table) {
+    if (poolSize < 1 || queueCapacity < 0) {
+      throw new IllegalArgumentException("Invalid AI pool size " + poolSize + " or queue capacity "
+          + queueCapacity);
+    }
+    this.maxPendingSearches = poolSize + queueCapacity;
+    // the slots are the real bound: a finished search frees its slot before its thread takes the
+    // next task, so the queue must be able to hold every slot for a moment
+    this.aiPool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(maxPendingSearches));
+    this.searchSlots = new Semaphore(maxPendingSearches);
+    this.budget = budget;
+    this.engines = ThreadLocal.withInitial(engineFactory);
+    this.table = table;
+    // System.nanoTime() has an arbitrary origin, so the first generation is timed from now
+    this.nextEpoch = new AtomicLong(System.nanoTime() + TABLE_EPOCH_MILLIS * 1_000_000);
+  }
+
+  /**
+   * Open a new session
+   *
+   * @param N The board size
+   * @return The session, with an empty board
+   */
+  public Session openSession(int N) {
+    return openSession(N, N, N);
+  }
+
+  /**
+   * Open a new session of an m x n game won by k in a row, e.g. 15 x 15 with 5 in a row; bound
+   * the search budget, or use {@link tictactoe.ai.MctsAi}, on such boards
+   *
+   * @param rows Number of rows (m)
+   * @param columns Number of columns (n)
+   * @param winLength Marks in a row needed to win (k)
+   * @return The session, with an empty board
+   */
+  public Session openSession(int rows, int columns, int winLength) {
+    Session session = new Session(nextId.getAndIncrement(),
+        new Board(rows, columns, winLength), this);
+    sessions.put(session.getId(), session);
+    return session;
+  }
+
+  /**
+   * Get an open session
+   *
+   * @param id The session identifier
+   * @return The session
+   * @throws IllegalArgumentException when no session has this identifier
+   */
+  public Session getSession(long id) {
+    Session session = sessions.get(id);
+    if (session == null) {
+      throw new IllegalArgumentException("Unknown session " + id);
+    }
+    return session;
+  }
+
+  /**
+   * Close a session, moves already submitted still complete
+   *
+   * @param id The session identifier
+   */
+  public void closeSession(long id) {
+    sessions.remove(id);
+  }
+
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * Get the number of searches running or waiting in the AI pool
+   *
+   * @return A number between 0 and poolSize + queueCapacity
+   */
+  public int getPendingSearches() {
+    return maxPendingSearches - searchSlots.availablePermits();
+  }
+
+  /**
+   * Play a move in a session on a virtual thread, followed by the AI reply
+   *
+   * @param id The session identifier
+   * @param x The row index of the move
+   * @param y The column index of the move
+   * @return The AI reply, null when the move finished the game; fails with
+   *         IllegalArgumentException on an illegal move
+   * @throws IllegalArgumentException when no session has this identifier
+   */
+  public Future<SearchResult> submitMove(long id, int x, int y) {
+    Session session = getSession(id);
+    return moveThreads.submit(() -> session.playAndReply(x, y));
+  }
+
+  /**
+   * Run an AI search on the pool, waiting for a free slot first
+   *
+   * @param g The game to search, must not change until the search is done
+   * @return The AI move
+   */
+  SearchResult search(Game g) throws InterruptedException, ExecutionException {
+    searchSlots.acquire();
+    try {
+      startEpochIfDue();
+      Future<SearchResult> result = aiPool.submit(() -> engines.get().search(g, budget));
+      boolean isInterrupted = false;
+      try {
+        while (true) {
+          try {
+            return result.get();
+          } catch (InterruptedException e) {
+            // the caller would release the game while the search may still read it, so wait for
+            // the search anyway and only then pass the interrupt on
+            isInterrupted = true;
+          }
+        }
+      } finally {
+        if (isInterrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    } finally {
+      searchSlots.release();
+    }
+  }
+
+  /**
+   * Start a new table generation when the current one is TABLE_EPOCH_MILLIS old; of concurrent
+   * callers only one starts it
+   */
+  private void startEpochIfDue() {
+    if (table == null) {
+      return;
+    }
+    long now = System.nanoTime();
+    long next = nextEpoch.get();
+    if (now - next >= 0 && nextEpoch.compareAndSet(next, now + TABLE_EPOCH_MILLIS * 1_000_000)) {
+      table.newSearch();
+    }
+  }
+
+  /**
+   * Stop accepting moves and wait for the running ones to finish
+   */
+  @Override
+  public void close() {
+    moveThreads.close();
+    aiPool.close();
+  }
+}
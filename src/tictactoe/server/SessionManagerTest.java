@@ -0,0 +1,121 @@
+package tictactoe.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+import tictactoe.ai.RandomAi;
+import tictactoe.ai.SearchBudget;
+import tictactoe.ai.SearchResult;
+import tictactoe.models.Game;
+
+public class SessionManagerTest {
+
+  @Test
+  public void concurrentSessionsPlayIndependentGames() throws Exception {
+    try (SessionManager manager = new SessionManager(2, 1, SearchBudget.unlimited())) {
+      List<Session> sessions = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        sessions.add(manager.openSession(3));
+      }
+      SplittableRandom random = new SplittableRandom(1);
+      // every round submits one move per unfinished session, all at once
+      boolean isPlaying = true;
+      while (isPlaying) {
+        isPlaying = false;
+        List<Future<SearchResult>> replies = new ArrayList<>();
+        for (Session session : sessions) {
+          if (!session.isFinished()) {
+            int[] move = emptyCell(session.getCells(), random);
+            replies.add(manager.submitMove(session.getId(), move[0], move[1]));
+            isPlaying = true;
+          }
+        }
+        for (Future<SearchResult> reply : replies) {
+          reply.get();
+        }
+        Assert.assertTrue(manager.getPendingSearches() == 0);
+      }
+      for (Session session : sessions) {
+        // the AI plays perfectly, a random opponent can never beat it
+        Assert.assertNotEquals(Game.FIRST_PLAYER_WIN, session.getOutcome());
+      }
+    }
+  }
+
+  @Test
+  public void illegalMoveFailsOnlyItsFuture() throws Exception {
+    try (SessionManager manager = new SessionManager()) {
+      Session session = manager.openSession(3);
+      manager.submitMove(session.getId(), 1, 1).get();
+      Future<SearchResult> illegal = manager.submitMove(session.getId(), 1, 1);
+      ExecutionException e = Assert.assertThrows(ExecutionException.class, illegal::get);
+      Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+      Assert.assertEquals(1, session.getCells()[1][1]);
+      Assert.assertThrows(IllegalArgumentException.class, () -> manager.submitMove(99, 0, 0));
+    }
+  }
+
+  @Test
+  public void interruptWhileWaitingForASlotTakesTheMoveBack() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    // one AI thread, no queue, and an engine that holds its slot until released
+    try (SessionManager manager = new SessionManager(1, 0, SearchBudget.unlimited(), () -> {
+      RandomAi random = new RandomAi(1);
+      return (g, budget) -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        return random.search(g, budget);
+      };
+    })) {
+      Future<SearchResult> busy = manager.submitMove(manager.openSession(3).getId(), 0, 0);
+      while (manager.getPendingSearches() == 0) {
+        Thread.sleep(1);
+      }
+
+      Session session = manager.openSession(3);
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+      Thread waiting = new Thread(() -> {
+        try {
+          session.playAndReply(1, 1);
+        } catch (Throwable e) {
+          failure.set(e);
+        }
+      });
+      try {
+        waiting.start();
+        while (waiting.getState() != Thread.State.WAITING) {
+          Thread.sleep(1);
+        }
+        waiting.interrupt();
+        waiting.join();
+        Assert.assertTrue(failure.get() instanceof InterruptedException);
+        Assert.assertEquals(0, session.getCells()[1][1]);
+      } finally {
+        release.countDown();
+      }
+      busy.get();
+      // the session is still on the first player's turn
+      manager.submitMove(session.getId(), 1, 1).get();
+      Assert.assertEquals(1, session.getCells()[1][1]);
+    }
+  }
+
+  private static int[] emptyCell(int[][] cells, SplittableRandom random) {
+    int N = cells.length;
+    while (true) {
+      int cell = random.nextInt(N * N);
+      if (cells[cell / N][cell % N] == 0) {
+        return new int[] {cell / N, cell % N};
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package tictactoe.tournament;
+
+import java.util.function.LongFunction;
+import tictactoe.ai.Engine;
+import tictactoe.ai.MctsAi;
+import tictactoe.ai.MinimaxAi;
+import tictactoe.ai.RandomAi;
+import tictactoe.ai.SearchBudget;
+
+/**
+ * An AI configuration entered in a {@link Tournament}: how to create its engine and the budget of
+ * each of its moves. Engines are not thread-safe, so the tournament creates one per game thread.
+ */
+public final class Contestant {
+  private final String name;
+  private final LongFunction<? extends Engine> factory; // creates an engine from a seed
+  private final SearchBudget budget; // budget of every move
+
+  /**
+   * Initialize a contestant
+   *
+   * @param name The name in the report, unique within a tournament
+   * @param factory Creates an engine from a seed, for engines with random playouts or moves
+   * @param budget The budget of every move
+   */
+  public Contestant(String name, LongFunction<? extends Engine> factory, SearchBudget budget) {
+    this.name = name;
+    this.factory = factory;
+    this.budget = budget;
+  }
+
+  /**
+   * Create a contestant from its command line name: minimax, minimax:depth, minimax-unordered,
+   * mcts or random
+   *
+   * @param spec The name, with the depth limit of minimax after a colon
+   * @param budget The budget of every move, before the depth limit
+   * @return The contestant
+   * @throws IllegalArgumentException when the name is unknown
+   */
+  public static Contestant parse(String spec, SearchBudget budget) {
+    String[] parts = spec.split(":", 2);
+    SearchBudget limited =
+        parts.length > 1 ? budget.withMaxDepth(Integer.parseInt(parts[1])) : budget;
+    switch (parts[0]) {
+      case "minimax":
+        return new Contestant(spec, seed -> new MinimaxAi(), limited);
+      case "minimax-unordered":
+        return new Contestant(spec, seed -> {
+          MinimaxAi ai = new MinimaxAi();
+          ai.setMoveOrdering(false);
+          return ai;
+        }, limited);
+      case "mcts":
+        return new Contestant(spec, seed -> new MctsAi(MctsAi.DEFAULT_CAPACITY, seed), budget);
+      case "random":
+        return new Contestant(spec, RandomAi::new, budget);
+      default:
+        throw new IllegalArgumentException("Unknown contestant " + spec);
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public SearchBudget getBudget() {
+    return budget;
+  }
+
+  /**
+   * Create an engine of this contestant
+   *
+   * @param seed The seed of the engine, if it uses randomness
+   * @return A new engine
+   */
+  public Engine createEngine(long seed) {
+    return factory.apply(seed);
+  }
+}
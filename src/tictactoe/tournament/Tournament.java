@@ -0,0 +1,224 @@
+package tictactoe.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import tictactoe.ai.Engine;
+import tictactoe.ai.SearchBudget;
+import tictactoe.ai.SearchResult;
+import tictactoe.models.BitBoard;
+import tictactoe.models.Board;
+import tictactoe.models.Game;
+
+/**
+ * Headless round-robin between AI configurations. Every pair of contestants plays the same number
+ * of games; games come in twos that start from the same random opening, once with each contestant
+ * moving first, so neither the opening nor the first move favours one side.
+ *
+ * The games run on a fixed pool of threads. Each thread plays its share of the games on a Game and
+ * engines of its own and keeps its own counts, which are merged at the end; threads share nothing
+ * but the index of the next game.
+ */
+public class Tournament {
+  private final int rows;
+  private final int columns;
+  private final int winLength;
+  private final int openingPlies; // random moves before the contestants take over
+  private final int threads;
+  private final long seed; // seed of the openings and the engines
+
+  /**
+   * Initialize a tournament
+   *
+   * @param rows The number of rows of the board
+   * @param columns The number of columns of the board
+   * @param winLength The number of marks in a row that wins
+   * @param openingPlies The random moves that open every game, fewer than 2 * winLength - 1 so
+   *        that no opening ends the game
+   * @param threads The number of games played at once
+   * @param seed The seed of the openings and of the engines, so that runs can be compared
+   */
+  public Tournament(int rows, int columns, int winLength, int openingPlies, int threads,
+      long seed) {
+    if (openingPlies < 0 || openingPlies >= 2 * winLength - 1 || openingPlies >= rows * columns) {
+      throw new IllegalArgumentException(
+          "An opening of " + openingPlies + " plies may end the game");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.winLength = winLength;
+    this.openingPlies = openingPlies;
+    this.threads = threads;
+    this.seed = seed;
+  }
+
+  /**
+   * Play every pair of contestants against each other
+   *
+   * @param contestants The contestants, at least two
+   * @param gamesPerPair The games of each pair, rounded up to an even number
+   * @return The results
+   */
+  public TournamentResult run(List<Contestant> contestants, int gamesPerPair)
+      throws InterruptedException {
+    if (contestants.size() < 2) {
+      throw new IllegalArgumentException("At least two contestants are needed");
+    }
+    int games = gamesPerPair + (gamesPerPair & 1);
+    List<int[]> pairs = new ArrayList<>();
+    for (int a = 0; a < contestants.size(); a++) {
+      for (int b = a + 1; b < contestants.size(); b++) {
+        pairs.add(new int[] {a, b});
+      }
+    }
+    long totalGames = (long) pairs.size() * games;
+    AtomicLong nextGame = new AtomicLong();
+
+    List<Callable<TournamentResult>> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      long workerSeed = seed + 0x9E3779B97F4A7C15L * (t + 1);
+      workers.add(() -> {
+        TournamentResult result = new TournamentResult(contestants);
+        Engine[] engines = new Engine[contestants.size()];
+        for (int c = 0; c < engines.length; c++) {
+          engines[c] = contestants.get(c).createEngine(workerSeed + c);
+        }
+        Game g = new Game(new Board(rows, columns, winLength));
+        for (long i = nextGame.getAndIncrement(); i < totalGames; i = nextGame.getAndIncrement()) {
+          int[] pair = pairs.get((int) (i / games));
+          long round = i % games;
+          // both games of a round share the opening, the second swaps the sides
+          boolean isSwapped = (round & 1) == 1;
+          int first = isSwapped ? pair[1] : pair[0];
+          int second = isSwapped ? pair[0] : pair[1];
+          play(g, seed + i / 2, contestants, engines, first, second, result);
+        }
+        return result;
+      });
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      TournamentResult total = new TournamentResult(contestants);
+      for (Future<TournamentResult> result : executor.invokeAll(workers)) {
+        total.add(result.get());
+      }
+      return total;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A game failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Play one game from a random opening and count it
+   */
+  private void play(Game g, long openingSeed, List<Contestant> contestants, Engine[] engines,
+      int first, int second, TournamentResult result) {
+    g.resetGame();
+    SplittableRandom random = new SplittableRandom(openingSeed);
+    for (int ply = 0; ply < openingPlies; ply++) {
+      BitBoard b = g.getBoard().getBitBoard();
+      int pick = random.nextInt(b.getEmptyCellCount());
+      int cell = 0;
+      while (!b.isEmpty(cell) || pick-- > 0) {
+        cell++;
+      }
+      g.play(cell / columns, cell % columns);
+    }
+    int[] players = {first, second};
+    long[] moves = new long[2];
+    long[] nanos = new long[2];
+    long[] nodes = new long[2];
+    while (!g.isFinished()) {
+      int side = g.isMaximizingPlayerTurn() ? 0 : 1;
+      int player = players[side];
+      long start = System.nanoTime();
+      SearchResult move = engines[player].search(g, contestants.get(player).getBudget());
+      nanos[side] += System.nanoTime() - start;
+      nodes[side] += move.getNodes();
+      moves[side]++;
+      g.play(move.getX(), move.getY());
+    }
+    result.addGame(first, second, g.getOutcome());
+    for (int side = 0; side < 2; side++) {
+      result.addMoves(players[side], moves[side], nanos[side], nodes[side]);
+    }
+  }
+
+  /**
+   * Run a tournament from the command line and print the results
+   *
+   * @param args Contestants (default minimax mcts random, see {@link Contestant#parse}), then
+   *        optionally -N board size (default 3), -k win length (default N), -games per pair
+   *        (default 1000), -plies random opening moves (default 2), -threads (default available
+   *        processors), -ms time budget per move (default: 20,000 nodes per move instead) and
+   *        -seed (default 1)
+   */
+  public static void main(String[] args) throws InterruptedException {
+    List<String> names = new ArrayList<>();
+    int N = 3;
+    int k = -1;
+    int games = 1_000;
+    int plies = 2;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long millis = 0;
+    long seed = 1;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-N":
+          N = Integer.parseInt(args[++i]);
+          break;
+        case "-k":
+          k = Integer.parseInt(args[++i]);
+          break;
+        case "-games":
+          games = Integer.parseInt(args[++i]);
+          break;
+        case "-plies":
+          plies = Integer.parseInt(args[++i]);
+          break;
+        case "-threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "-ms":
+          millis = Long.parseLong(args[++i]);
+          break;
+        case "-seed":
+          seed = Long.parseLong(args[++i]);
+          break;
+        default:
+          names.add(args[i]);
+      }
+    }
+    if (names.isEmpty()) {
+      names = List.of("minimax", "mcts", "random");
+    }
+    if (k < 0) {
+      k = N;
+    }
+    SearchBudget budget = millis > 0 ? SearchBudget.ofMillis(millis) : SearchBudget.ofNodes(20_000);
+    List<Contestant> contestants = new ArrayList<>();
+    for (String name : names) {
+      contestants.add(Contestant.parse(name, budget));
+    }
+
+    long start = System.nanoTime();
+    TournamentResult result = new Tournament(N, N, k, plies, threads, seed).run(contestants, games);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    long pairs = (long) contestants.size() * (contestants.size() - 1) / 2;
+    System.out.printf("%,d games on %dx%d (k=%d), %d threads, %.1f s%n%n",
+        pairs * (games + (games & 1)), N, N, k, threads, seconds);
+    System.out.print(result);
+  }
+}
@@ -0,0 +1,196 @@
+package tictactoe.tournament;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of a {@link Tournament}: win/draw/loss counts of every pair of contestants, Elo
+ * differences with 95% confidence intervals, and the average latency and nodes of the moves of
+ * each contestant.
+ *
+ * An Elo difference follows from the score s (1 per win, 1/2 per draw, averaged over the games) as
+ * -400 log10(1/s - 1). Its interval maps the normal interval of the mean score, s +/- 1.96 standard
+ * errors, the same way; a score of 0 or 1 gives an infinite difference.
+ */
+public class TournamentResult {
+  private static final double Z_95 = 1.959964; // two-sided 95% quantile of the normal distribution
+  private final List<Contestant> contestants;
+  private final long[][] wins; // [a][b] = games a won against b
+  private final long[][] draws; // [a][b] = draws between a and b, symmetric
+  private final long[] moves; // [a] = moves played by a, openings excluded
+  private final long[] nanos; // [a] = time a spent on its moves
+  private final long[] nodes; // [a] = nodes a searched for its moves
+
+  TournamentResult(List<Contestant> contestants) {
+    int n = contestants.size();
+    this.contestants = contestants;
+    this.wins = new long[n][n];
+    this.draws = new long[n][n];
+    this.moves = new long[n];
+    this.nanos = new long[n];
+    this.nodes = new long[n];
+  }
+
+  /**
+   * Add a finished game
+   *
+   * @param first The contestant who moved first
+   * @param second The contestant who moved second
+   * @param outcome The outcome, from {@link tictactoe.models.Game}
+   */
+  void addGame(int first, int second, int outcome) {
+    if (outcome > 0) {
+      wins[first][second]++;
+    } else if (outcome < 0) {
+      wins[second][first]++;
+    } else {
+      draws[first][second]++;
+      draws[second][first]++;
+    }
+  }
+
+  /**
+   * Add the moves of one contestant in one game
+   */
+  void addMoves(int contestant, long moveCount, long moveNanos, long moveNodes) {
+    moves[contestant] += moveCount;
+    nanos[contestant] += moveNanos;
+    nodes[contestant] += moveNodes;
+  }
+
+  /**
+   * Add the counts of another result of the same contestants
+   *
+   * @param other The result to add
+   */
+  void add(TournamentResult other) {
+    for (int a = 0; a < wins.length; a++) {
+      for (int b = 0; b < wins.length; b++) {
+        wins[a][b] += other.wins[a][b];
+        draws[a][b] += other.draws[a][b];
+      }
+      moves[a] += other.moves[a];
+      nanos[a] += other.nanos[a];
+      nodes[a] += other.nodes[a];
+    }
+  }
+
+  public List<Contestant> getContestants() {
+    return contestants;
+  }
+
+  public long getWins(int a, int b) {
+    return wins[a][b];
+  }
+
+  public long getDraws(int a, int b) {
+    return draws[a][b];
+  }
+
+  public long getLosses(int a, int b) {
+    return wins[b][a];
+  }
+
+  /**
+   * Get the Elo difference of one contestant over another, from their games against each other
+   *
+   * @param a The contestant
+   * @param b The opponent
+   * @return [difference, low, high] of the 95% confidence interval, NaN without games
+   */
+  public double[] getEloDifference(int a, int b) {
+    return elo(wins[a][b], draws[a][b], wins[b][a]);
+  }
+
+  /**
+   * Get the Elo difference of one contestant over the field, from all its games
+   *
+   * @param a The contestant
+   * @return [difference, low, high] of the 95% confidence interval, NaN without games
+   */
+  public double[] getEloDifference(int a) {
+    long w = 0;
+    long d = 0;
+    long l = 0;
+    for (int b = 0; b < wins.length; b++) {
+      w += wins[a][b];
+      d += draws[a][b];
+      l += wins[b][a];
+    }
+    return elo(w, d, l);
+  }
+
+  /**
+   * Get the average time of a move of a contestant
+   *
+   * @param a The contestant
+   * @return The latency in milliseconds, 0 without moves
+   */
+  public double getAverageMoveMillis(int a) {
+    return moves[a] == 0 ? 0 : nanos[a] / 1e6 / moves[a];
+  }
+
+  /**
+   * Get the average number of nodes searched per move of a contestant
+   *
+   * @param a The contestant
+   * @return The node count, 0 without moves
+   */
+  public double getAverageMoveNodes(int a) {
+    return moves[a] == 0 ? 0 : (double) nodes[a] / moves[a];
+  }
+
+  /**
+   * Elo difference with its 95% confidence interval from win, draw and loss counts
+   */
+  static double[] elo(long w, long d, long l) {
+    long n = w + d + l;
+    if (n == 0) {
+      return new double[] {Double.NaN, Double.NaN, Double.NaN};
+    }
+    double score = (w + 0.5 * d) / n;
+    double variance = (w * (1 - score) * (1 - score) + d * (0.5 - score) * (0.5 - score)
+        + l * score * score) / n;
+    double margin = Z_95 * Math.sqrt(variance / n);
+    return new double[] {eloOfScore(score), eloOfScore(Math.max(0, score - margin)),
+        eloOfScore(Math.min(1, score + margin))};
+  }
+
+  private static double eloOfScore(double score) {
+    // + 0.0 turns -0.0 into 0.0, an even score prints as +0
+    return -400 * Math.log10(1 / score - 1) + 0.0;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format(Locale.ROOT, "%-20s %8s %8s %8s %26s %12s %12s%n", "contestant",
+        "wins", "draws", "losses", "Elo vs field (95% CI)", "ms/move", "nodes/move"));
+    for (int a = 0; a < contestants.size(); a++) {
+      long w = 0;
+      long d = 0;
+      long l = 0;
+      for (int b = 0; b < contestants.size(); b++) {
+        w += wins[a][b];
+        d += draws[a][b];
+        l += wins[b][a];
+      }
+      sb.append(String.format(Locale.ROOT, "%-20s %8d %8d %8d %26s %12.3f %12.0f%n",
+          contestants.get(a).getName(), w, d, l, formatElo(getEloDifference(a)),
+          getAverageMoveMillis(a), getAverageMoveNodes(a)));
+    }
+    sb.append(System.lineSeparator());
+    for (int a = 0; a < contestants.size(); a++) {
+      for (int b = a + 1; b < contestants.size(); b++) {
+        sb.append(String.format(Locale.ROOT, "%s vs %s: +%d =%d -%d, Elo %s%n",
+            contestants.get(a).getName(), contestants.get(b).getName(), wins[a][b], draws[a][b],
+            wins[b][a], formatElo(getEloDifference(a, b))));
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String formatElo(double[] elo) {
+    return String.format(Locale.ROOT, "%+.0f [%+.0f, %+.0f]", elo[0], elo[1], elo[2]);
+  }
+}
@@ -0,0 +1,32 @@
+package tictactoe.tournament;
+
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import tictactoe.ai.SearchBudget;
+
+public class TournamentTest {
+
+  @Test
+  public void eloFollowsTheScore() {
+    Assert.assertArrayEquals(new double[] {0, 0, 0}, TournamentResult.elo(0, 10, 0), 1e-9);
+    double[] elo = TournamentResult.elo(75, 0, 25);
+    Assert.assertEquals(190.85, elo[0], 0.01);
+    Assert.assertTrue(elo[1] < elo[0] && elo[0] < elo[2]);
+    Assert.assertEquals(Double.POSITIVE_INFINITY, TournamentResult.elo(5, 0, 0)[0], 0);
+  }
+
+  @Test
+  public void perfectPlayNeverLosesToRandomMoves() throws InterruptedException {
+    SearchBudget budget = SearchBudget.unlimited();
+    List<Contestant> contestants =
+        List.of(Contestant.parse("minimax", budget), Contestant.parse("random", budget));
+    TournamentResult result = new Tournament(3, 3, 3, 0, 2, 1).run(contestants, 51);
+    Assert.assertEquals(52, result.getWins(0, 1) + result.getDraws(0, 1) + result.getLosses(0, 1));
+    Assert.assertEquals(0, result.getLosses(0, 1));
+    Assert.assertTrue(result.getWins(0, 1) > 26);
+    Assert.assertTrue(result.getEloDifference(0)[1] > 0);
+    Assert.assertTrue(result.getAverageMoveNodes(0) > 0);
+    Assert.assertEquals(0, result.getAverageMoveNodes(1), 0);
+  }
+}
@@ -1,37 +1,185 @@
 package tictactoe.view;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingWorker;
+import tictactoe.ai.PonderingAi;
+import tictactoe.ai.SearchBudget;
+import tictactoe.ai.SearchResult;
+import tictactoe.models.BitBoard;
 import tictactoe.models.Game;
 
+/**
+ * Plays the user (first player, X) against the AI (O). The game is only touched on the Swing event
+ * thread; the AI searches a copy of the position on a background thread and streams the best move
+ * of each completed iteration back to the status line, so the window stays responsive however long
+ * the search takes.
+ *
+ * A click on the board while the AI is thinking makes it move at once, with the best move found so
+ * far. A reset cancels the search and throws its result away. While the user thinks the AI ponders
+ * on the reply it expects, see {@link PonderingAi}.
+ */
 public class GameController {
+  public static final long DEFAULT_THINKING_MILLIS = 2_000;
   Game game;
+  private final PonderingAi ai = new PonderingAi(); // only used on the AI thread
+  private final ExecutorService aiThread = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "tictactoe-ai");
+    t.setDaemon(true);
+    return t;
+  });
+  private final SearchBudget budget; // budget of every AI move
+  private AiMove search; // the AI move in progress, or null
 
   public GameController(Game game) {
+    this(game, SearchBudget.ofMillis(DEFAULT_THINKING_MILLIS));
+  }
+
+  /**
+   * Initialize a controller
+   *
+   * @param game The game to play, only changed on the event thread from now on
+   * @param budget The budget of every AI move
+   */
+  public GameController(Game game, SearchBudget budget) {
     this.game = game;
+    this.budget = budget;
   }
 
   public void actionOccured(int x, int y, GamePanel p) {
+    if (search != null) {
+      search.moveNow();
+      return;
+    }
+    if (game.isFinished() || !game.isMaximizingPlayerTurn()) {
+      return;
+    }
     try {
       game.play(x, y);
-      p.updateButton(x, y, game.isMaximizingPlayerTurn() ? "X" : "0");
-      int[] outcome = game.getGameOutcome();
-      if (outcome[0] == Game.FINISHED) {
-        String outcomeStr = "";
-        switch (outcome[1]) {
-          case Game.FIRST_PLAYER_WIN:
-            outcomeStr = "You won";
-            break;
-          case Game.SECOND_PLAYER_WIN:
-            outcomeStr = "You failed";
-            break;
-          case Game.DRAW:
-            outcomeStr = "Draw";
-            break;
-        }
-        p.changeStatus("Finished: " + outcomeStr);
-      }
-      game.setPlayerTurn(!game.isMaximizingPlayerTurn());
-    } catch (Exception e) {
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    p.updateButton(x, y, "X");
+    if (game.isFinished()) {
+      aiThread.execute(ai::stopPondering);
+      showOutcome(p);
+      return;
     }
+    search = new AiMove(p);
+    p.changeStatus("Thinking");
+    aiThread.execute(search);
   }
 
+  /**
+   * Cancel the AI move in progress, if any, and start a new game
+   *
+   * @param p The panel to clear
+   */
+  public void resetOccured(GamePanel p) {
+    if (search != null) {
+      search.cancel(true);
+      search = null;
+    }
+    // runs after the cancelled search, which starts pondering as every search does
+    aiThread.execute(ai::stopPondering);
+    game.resetGame();
+    p.clearButtons();
+    p.changeStatus("Playing");
+  }
+
+  private void showOutcome(GamePanel p) {
+    String outcomeStr = "";
+    switch (game.getOutcome()) {
+      case Game.FIRST_PLAYER_WIN:
+        outcomeStr = "You won";
+        break;
+      case Game.SECOND_PLAYER_WIN:
+        outcomeStr = "You failed";
+        break;
+      case Game.DRAW:
+        outcomeStr = "Draw";
+        break;
+    }
+    p.changeStatus("Finished: " + outcomeStr);
+  }
+
+  /**
+   * One AI move: searched on the AI thread, applied on the event thread. A cancelled move, or one
+   * that a reset replaced, is never applied.
+   */
+  private class AiMove extends SwingWorker<SearchResult, SearchResult> {
+    private final GamePanel p;
+    private final BitBoard position; // copy of the board, the search never sees the game
+    private final boolean isMaximizingPlayerTurn;
+    private volatile boolean isMoveNowRequested; // Whether the user asked for the move at once
+    private volatile Thread searchThread; // the thread running the search, once started
+
+    AiMove(GamePanel p) {
+      this.p = p;
+      this.position = new BitBoard(game.getBoard().getBitBoard());
+      this.isMaximizingPlayerTurn = game.isMaximizingPlayerTurn();
+    }
+
+    /**
+     * Stop the search and play the best move found so far. The search polls the interrupt status,
+     * so the move comes within a few hundred nodes.
+     */
+    void moveNow() {
+      isMoveNowRequested = true;
+      Thread t = searchThread;
+      if (t != null) {
+        t.interrupt();
+      }
+    }
+
+    @Override
+    protected SearchResult doInBackground() {
+      searchThread = Thread.currentThread();
+      if (isMoveNowRequested) {
+        // asked before the search started, moveNow could not interrupt it
+        Thread.currentThread().interrupt();
+      }
+      ai.setProgressListener(this::publish);
+      try {
+        return ai.search(position, isMaximizingPlayerTurn, budget);
+      } finally {
+        ai.setProgressListener(null);
+        searchThread = null;
+      }
+    }
+
+    @Override
+    protected void process(List<SearchResult> chunks) {
+      if (search != this) {
+        return;
+      }
+      SearchResult best = chunks.get(chunks.size() - 1);
+      p.changeStatus(String.format("Thinking: [%d,%d] at depth %d", best.getX(), best.getY(),
+          best.getDepth()));
+    }
+
+    @Override
+    protected void done() {
+      if (search != this || isCancelled()) {
+        return;
+      }
+      search = null;
+      SearchResult result;
+      try {
+        result = get();
+      } catch (InterruptedException | ExecutionException e) {
+        p.changeStatus("AI failed: " + e.getCause());
+        return;
+      }
+      game.play(result.getX(), result.getY());
+      p.updateButton(result.getX(), result.getY(), "O");
+      if (game.isFinished()) {
+        showOutcome(p);
+      } else {
+        p.changeStatus("Your turn");
+      }
+    }
+  }
 }
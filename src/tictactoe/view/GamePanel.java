@@ -12,10 +12,12 @@ public class GamePanel extends JPanel {
 
   JButton[][] buttons;
   JLabel statusLabel;
+  JButton resetButton;
 
   public GamePanel(int N, GameController gameController) {
     buttons = new JButton[N][N];
     statusLabel = new JLabel("Playing");
+    resetButton = new JButton("New game");
     GamePanel thisInstance = this;
     JPanel grid = new JPanel();
     grid.setLayout(new GridLayout(N, N));
@@ -36,8 +38,18 @@ public class GamePanel extends JPanel {
 
       }
     }
+    resetButton.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        gameController.resetOccured(thisInstance);
+      }
+
+    });
+    JPanel status = new JPanel();
+    status.add(statusLabel);
+    status.add(resetButton);
     add(grid);
-    add(statusLabel);
+    add(status);
     setLayout(new GridLayout(2, 1));
   }
 
@@ -50,4 +62,13 @@ public class GamePanel extends JPanel {
     buttons[x][y].setEnabled(false);
   }
 
+  public void clearButtons() {
+    for (JButton[] row : buttons) {
+      for (JButton button : row) {
+        button.setText("");
+        button.setEnabled(true);
+      }
+    }
+  }
+
 }